@@ -0,0 +1,134 @@
+package github.scarsz.configuralize.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * {@link ConfigEvents} backed by JDK Flight Recorder, loaded reflectively when {@code jdk.jfr} is available
+ */
+@SuppressWarnings("unused")
+class JfrConfigEvents extends ConfigEvents {
+
+    @Override
+    public Load beginLoad(String source, String origin, String format) {
+        LoadEvent event = new LoadEvent();
+        if (!event.isEnabled()) return Load.NONE;
+        event.source = source;
+        event.origin = origin;
+        event.format = format;
+        event.begin();
+        return new Load() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void parsed(long bytes, int keys) {
+                event.bytes = bytes;
+                event.keys = keys;
+                event.success = true;
+            }
+
+            @Override
+            public void failed(Throwable error) {
+                event.error = describe(error);
+            }
+
+            @Override
+            public void commit() {
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public Save beginSave(String source) {
+        SaveDefaultsEvent event = new SaveDefaultsEvent();
+        if (!event.isEnabled()) return Save.NONE;
+        event.source = source;
+        event.begin();
+        return new Save() {
+            @Override
+            public void saved(boolean written) {
+                event.written = written;
+                event.success = true;
+            }
+
+            @Override
+            public void failed(Throwable error) {
+                event.error = describe(error);
+            }
+
+            @Override
+            public void commit() {
+                event.commit();
+            }
+        };
+    }
+
+    @Override
+    public Map beginMap(Class<?> clazz) {
+        MapEvent event = new MapEvent();
+        if (!event.isEnabled()) return Map.NONE;
+        event.mappedClass = clazz;
+        event.begin();
+        return new Map() {
+            @Override
+            public void mapped(int fields) {
+                event.fields = fields;
+                event.success = true;
+            }
+
+            @Override
+            public void failed(Throwable error) {
+                event.error = describe(error);
+            }
+
+            @Override
+            public void commit() {
+                event.commit();
+            }
+        };
+    }
+
+    private static String describe(Throwable error) {
+        return error.getMessage() != null ? error.getClass().getName() + ": " + error.getMessage() : error.getClass().getName();
+    }
+
+    @Name("configuralize.Load")
+    @Label("Config Load")
+    @Description("Reading and parsing a config source")
+    @Category("Configuralize")
+    static class LoadEvent extends Event {
+        @Label("Source") String source;
+        @Label("Origin") String origin;
+        @Label("Format") String format;
+        @Label("Bytes") @DataAmount long bytes;
+        @Label("Keys") int keys;
+        @Label("Success") boolean success;
+        @Label("Error") @Description("Why loading failed, if it did") String error;
+    }
+
+    @Name("configuralize.SaveDefaults")
+    @Label("Config Save Defaults")
+    @Description("Saving a config source's bundled defaults to its file")
+    @Category("Configuralize")
+    static class SaveDefaultsEvent extends Event {
+        @Label("Source") String source;
+        @Label("Written") @Description("False if the file was skipped because it exists or is unchanged") boolean written;
+        @Label("Success") boolean success;
+        @Label("Error") @Description("Why saving failed, if it did") String error;
+    }
+
+    @Name("configuralize.Map")
+    @Label("Config Map")
+    @Description("Mapping config values to a class's @Option fields")
+    @Category("Configuralize")
+    static class MapEvent extends Event {
+        @Label("Class") Class<?> mappedClass;
+        @Label("Fields") int fields;
+        @Label("Success") boolean success;
+        @Label("Error") @Description("Why mapping failed, if it did") String error;
+    }
+
+}
@@ -0,0 +1,79 @@
+package github.scarsz.configuralize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically refreshes a {@link DynamicConfig}'s backend sources on the config's background thread.
+ * Each source is polled on its own schedule; failures back off exponentially up to a maximum delay, and every
+ * delay is jittered so a fleet of processes started together doesn't poll in lockstep. A failed poll keeps the
+ * source's last good values.
+ */
+class BackendPoller {
+
+    private static final int MAX_BACKOFF_SHIFT = 16;
+    private static final double JITTER = 0.2;
+
+    private final DynamicConfig config;
+    private final long intervalNanos;
+    private final long maxBackoffNanos;
+    private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+    private volatile boolean running = true;
+
+    BackendPoller(DynamicConfig config, long interval, long maxBackoff, TimeUnit unit) {
+        this.config = config;
+        this.intervalNanos = unit.toNanos(interval);
+        this.maxBackoffNanos = Math.max(unit.toNanos(maxBackoff), intervalNanos);
+    }
+
+    synchronized void start() {
+        for (Provider provider : config.getSources().values()) {
+            if (provider.getSource().getBackend() == null) continue;
+            schedule(provider, 0, jitter(intervalNanos));
+        }
+    }
+
+    synchronized void stop() {
+        running = false;
+        tasks.forEach(task -> task.cancel(false));
+        tasks.clear();
+    }
+
+    private void poll(Provider provider, int failures) {
+        if (!running) return;
+        try {
+            provider.refresh();
+            provider.setLastRefreshFailure(null);
+            failures = 0;
+        } catch (Exception e) {
+            provider.setLastRefreshFailure(e);
+            failures++;
+        }
+        schedule(provider, failures, jitter(backoff(failures)));
+    }
+
+    /**
+     * @return the delay before the next poll after the given number of consecutive failures
+     */
+    private long backoff(int failures) {
+        if (failures == 0) return intervalNanos;
+        int shift = Math.min(failures, MAX_BACKOFF_SHIFT);
+        // shifting this far would overflow, possibly to a positive value, and is past any sensible maximum anyway
+        if (shift >= Long.numberOfLeadingZeros(intervalNanos) - 1) return maxBackoffNanos;
+        return Math.min(intervalNanos << shift, maxBackoffNanos);
+    }
+
+    private synchronized void schedule(Provider provider, int failures, long delayNanos) {
+        if (!running) return;
+        tasks.removeIf(ScheduledFuture::isDone);
+        tasks.add(config.getScheduler().schedule(() -> poll(provider, failures), delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private static long jitter(long nanos) {
+        return (long) (nanos * (1 - JITTER + ThreadLocalRandom.current().nextDouble() * JITTER * 2));
+    }
+
+}
@@ -0,0 +1,38 @@
+package github.scarsz.configuralize;
+
+import java.util.*;
+
+/**
+ * An immutable set of strings that ignores case when checking membership.
+ * Entries are kept in their original case; lookups hash the lower case form.
+ */
+final class CaseInsensitiveSet extends AbstractSet<String> {
+
+    private final Map<String, String> entries;
+
+    CaseInsensitiveSet(Collection<?> values) {
+        Map<String, String> entries = new LinkedHashMap<>(values.size() * 2);
+        for (Object value : values) {
+            if (value == null) continue;
+            String string = value.toString();
+            entries.putIfAbsent(string.toLowerCase(Locale.ROOT), string);
+        }
+        this.entries = entries;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && entries.containsKey(((String) o).toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return Collections.unmodifiableCollection(entries.values()).iterator();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,202 @@
+package github.scarsz.configuralize;
+
+import alexh.weak.Converter;
+import alexh.weak.Dynamic;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * An immutable config value with direct typed accessors. Values already of the requested type are returned as-is,
+ * anything else is converted the same way {@link Dynamic#convert()} would.
+ * <p>
+ * Sources index their values into nodes once per load, keyed by their full dotted key, so looking a key up
+ * doesn't walk or wrap the config tree. {@link #toDynamic()} adapts a node for code written against {@link Dynamic}.
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public final class ConfigNode {
+
+    static final ConfigNode NULL = new ConfigNode(null);
+
+    /**
+     * @param value the value to wrap
+     * @return a node holding the given value
+     */
+    public static ConfigNode of(Object value) {
+        return value == null ? NULL : new ConfigNode(value);
+    }
+
+    /**
+     * Index every value of the given tree by its full dotted key, sections included. Null values aren't indexed
+     * so lookups fall through to the next source, like they did for absent {@link Dynamic} children.
+     * @param tree the config tree to index, may be null
+     * @return the dotted keys mapped to their nodes
+     */
+    static Map<String, ConfigNode> index(Map<?, ?> tree) {
+        if (tree == null) return Collections.emptyMap();
+        Map<String, ConfigNode> index = new HashMap<>();
+        index("", tree, index);
+        return index;
+    }
+    private static void index(String prefix, Map<?, ?> tree, Map<String, ConfigNode> index) {
+        for (Map.Entry<?, ?> entry : tree.entrySet()) {
+            if (entry.getValue() == null) continue;
+            String key = prefix + entry.getKey();
+            index.putIfAbsent(key, new ConfigNode(entry.getValue()));
+            if (entry.getValue() instanceof Map) index(key + ".", (Map<?, ?>) entry.getValue(), index);
+        }
+    }
+
+    private final Object value;
+    private final Object view;
+    private final boolean interpolated;
+
+    private ConfigNode(Object value) {
+        this.value = value;
+        this.interpolated = Interpolator.isInterpolated(value);
+        if (value instanceof List) {
+            this.view = Collections.unmodifiableList((List<?>) value);
+        } else if (value instanceof Map) {
+            this.view = Collections.unmodifiableMap((Map<?, ?>) value);
+        } else {
+            this.view = value;
+        }
+    }
+
+    /**
+     * @return the raw value, lists and maps as unmodifiable views
+     */
+    public Object asObject() {
+        return view;
+    }
+
+    /**
+     * @return whether the value is a string holding {@code ${key}} references, checked once when the node is created
+     */
+    boolean isInterpolated() {
+        return interpolated;
+    }
+
+    /**
+     * @return whether this node holds the given instance itself, rather than an equal value
+     */
+    boolean holds(Object value) {
+        return this.value == value;
+    }
+
+    public boolean isNull() {
+        return value == null;
+    }
+    public boolean isList() {
+        return value instanceof List;
+    }
+    public boolean isMap() {
+        return value instanceof Map;
+    }
+
+    public String asString() {
+        if (value instanceof String) return (String) value;
+        return Converter.convert(value).intoString();
+    }
+
+    /**
+     * @throws ArithmeticException if the value is a number that isn't integral or doesn't fit an int
+     */
+    public int asInt() throws RuntimeException {
+        if (value instanceof Integer) return (Integer) value;
+        if (value instanceof Long) return Math.toIntExact((Long) value);
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if ((int) number != number) throw new ArithmeticException("Value isn't an int: " + number);
+            return (int) number;
+        }
+        return Converter.convert(value).intoInteger();
+    }
+
+    /**
+     * @throws ArithmeticException if the value is a number that isn't integral or doesn't fit a long
+     */
+    public long asLong() throws RuntimeException {
+        if (value instanceof Long || value instanceof Integer) return ((Number) value).longValue();
+        if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if ((long) number != number || number >= 0x1p63) throw new ArithmeticException("Value isn't a long: " + number);
+            return (long) number;
+        }
+        return Converter.convert(value).intoLong();
+    }
+
+    public double asDouble() {
+        if (value instanceof Double) return (Double) value;
+        return Converter.convert(value).intoDouble();
+    }
+
+    public BigDecimal asDecimal() {
+        if (value instanceof BigDecimal) return (BigDecimal) value;
+        return Converter.convert(value).intoDecimal();
+    }
+
+    /**
+     * @return the value as a boolean, accepting true/yes/on/1 and false/no/off/0
+     * @throws RuntimeException if the value isn't one of those
+     */
+    public boolean asBoolean() throws RuntimeException {
+        if (value instanceof Boolean) return (Boolean) value;
+        return parseBoolean(asString(), "value");
+    }
+    static boolean parseBoolean(String value, String description) {
+        switch (value.toLowerCase()) {
+            case "true":
+            case "yes":
+            case "on":
+            case "1":
+                return true;
+            case "false":
+            case "no":
+            case "off":
+            case "0":
+                return false;
+            default:
+                throw new RuntimeException("Can't convert " + description + " \"" + value + "\" to boolean");
+        }
+    }
+
+    /**
+     * @return the value as an unmodifiable list, converted if it isn't one
+     */
+    public <T> List<T> asList() {
+        if (value instanceof List) return (List<T>) view;
+        return Collections.unmodifiableList(Converter.convert(value).intoList());
+    }
+
+    /**
+     * @return the value as an unmodifiable map, converted if it isn't one
+     */
+    public <K, V> Map<K, V> asMap() {
+        if (value instanceof Map) return (Map<K, V>) view;
+        return Collections.unmodifiableMap(Converter.convert(value).intoMap());
+    }
+
+    /**
+     * @return this node as a {@link Dynamic}, for code written against the Dynamic API
+     */
+    public Dynamic toDynamic() {
+        return Dynamic.from(value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ConfigNode && Objects.equals(value, ((ConfigNode) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+
+}
@@ -0,0 +1,276 @@
+package github.scarsz.configuralize;
+
+import alexh.weak.Dynamic;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable view of a {@link DynamicConfig}'s values at one point in time, see {@link DynamicConfig#snapshot()}
+ */
+@SuppressWarnings("WeakerAccess")
+public class ConfigSnapshot extends ConfigView {
+
+    private final long generation;
+    private final Language language;
+    private final RuntimeOverrides.Layer runtime;
+    private final List<Provider.State> states;
+    private final DerivedCache derived;
+    private final boolean translated;
+    private final Map<String, ConfigNode> overlay;
+    private final Interpolator interpolator = new Interpolator(this::lookupRaw);
+    private final Map<String, ConfigNode> resolved = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> runtimeValues = null;
+    private final Map<Language, ConfigSnapshot> translations = new ConcurrentHashMap<>();
+    private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> stringSets = new ConcurrentHashMap<>();
+    private final Map<String, LongSet> longSets = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> caseInsensitiveSets = new ConcurrentHashMap<>();
+    private final Map<String, PrefixTrie> prefixTries = new ConcurrentHashMap<>();
+
+    /**
+     * Taking a snapshot only captures the current runtime layer and source states, which are immutable;
+     * {@code ${references}} are resolved by {@link #resolveAll()}, which loading does right away, or else the first
+     * time their key is looked up, and kept for the snapshot's lifetime.
+     */
+    ConfigSnapshot(long generation, Language language, RuntimeOverrides.Layer runtime, Map<String, ConfigNode> overlay,
+                   List<Provider.State> states, DerivedCache derived) {
+        this.generation = generation;
+        this.language = language;
+        this.runtime = runtime;
+        this.overlay = overlay;
+        this.states = states;
+        this.derived = derived;
+        this.translated = states.stream().anyMatch(state -> state.language != null && state.language != language);
+    }
+
+    private Object lookupRaw(String key) {
+        try {
+            return nodeRaw(key).asObject();
+        } catch (IllegalArgumentException e) {
+            return Interpolator.MISSING;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Keys taking part in a circular chain of references keep their raw values and are reported by
+     * {@link #getInterpolationErrors()}.
+     */
+    @Override
+    public ConfigNode node(String key) throws IllegalArgumentException {
+        ConfigNode node = nodeRaw(key);
+        if (!node.isInterpolated()) return node;
+        ConfigNode resolved = this.resolved.get(key);
+        if (resolved != null) return resolved;
+
+        Object value = interpolator.resolve(key);
+        resolved = value != null ? ConfigNode.of(value) : node;
+        ConfigNode raced = this.resolved.putIfAbsent(key, resolved);
+        return raced != null ? raced : resolved;
+    }
+
+    /**
+     * Look up a key without resolving references
+     */
+    private ConfigNode nodeRaw(String key) throws IllegalArgumentException {
+        RuntimeOverrides.Entry entry = runtime.get(key);
+        if (entry != null) return entry.node;
+        ConfigNode node = overlay.get(key);
+        if (node != null) return node;
+        if (translated) return nodeTranslated(key);
+        for (Provider.State state : states) {
+            node = state.valueIndex.get(key);
+            if (node != null) return node;
+        }
+        for (Provider.State state : states) {
+            node = state.defaultIndex.get(key);
+            if (node != null) return node;
+        }
+        return nodeUnindexed(key, language);
+    }
+
+    /**
+     * Look up a key in a language other than the one sources were loaded in. Values the user changed from the
+     * defaults they were saved from are kept; values left at their default are replaced by the translation.
+     */
+    private ConfigNode nodeTranslated(String key) {
+        ConfigNode node;
+        for (Provider.State state : states) {
+            node = state.valueIndex.get(key);
+            if (node != null && (state.language == language || !node.equals(state.defaultIndex.get(key)))) return node;
+        }
+        for (Provider.State state : states) {
+            node = state.getDefaultIndex(language).get(key);
+            if (node != null) return node;
+        }
+        for (Provider.State state : states) {
+            node = state.valueIndex.get(key);
+            if (node != null) return node;
+        }
+        for (Provider.State state : states) {
+            node = state.defaultIndex.get(key);
+            if (node != null) return node;
+        }
+        return nodeUnindexed(key, language);
+    }
+
+    /**
+     * Fall back to walking the trees for keys the indexes don't hold, like list elements ({@code list.0})
+     */
+    private ConfigNode nodeUnindexed(String key, Language language) {
+        if (key.indexOf('.') != -1) {
+            for (Provider.State state : states) {
+                Dynamic dynamic = state.values != null ? state.values.dget(key) : Dynamic.from(null);
+                if (dynamic.isPresent()) return ConfigNode.of(dynamic.asObject());
+            }
+            for (Provider.State state : states) {
+                Dynamic defaults = state.getDefaults(language);
+                Dynamic dynamic = defaults != null ? defaults.dget(key) : Dynamic.from(null);
+                if (dynamic.isPresent()) return ConfigNode.of(dynamic.asObject());
+            }
+        }
+        throw new IllegalArgumentException("Invalid key: " + key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Templates are parsed once per snapshot and shared, concurrent callers get the same instance.
+     */
+    @Override
+    public MessageTemplate getTemplate(String key) throws RuntimeException {
+        return templates.computeIfAbsent(key, super::getTemplate);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Derived values are shared with the config's other snapshots until the key's value changes.
+     */
+    @Override
+    public <T> T getDerived(String key, Function<String, T> function) throws RuntimeException {
+        return derived.get(key, node(key), function);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Sets are built once per snapshot and shared, concurrent callers get the same instance.
+     */
+    @Override
+    public Set<String> getStringSet(String key) throws RuntimeException {
+        return stringSets.computeIfAbsent(key, super::getStringSet);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Sets are built once per snapshot and shared, concurrent callers get the same instance.
+     */
+    @Override
+    public LongSet getLongSet(String key) throws RuntimeException {
+        return longSets.computeIfAbsent(key, super::getLongSet);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Sets are built once per snapshot and shared, concurrent callers get the same instance.
+     */
+    @Override
+    public Set<String> getCaseInsensitiveSet(String key) throws RuntimeException {
+        return caseInsensitiveSets.computeIfAbsent(key, super::getCaseInsensitiveSet);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Tries are built once per snapshot and shared, concurrent callers get the same instance.
+     */
+    @Override
+    public PrefixTrie getPrefixTrie(String key) throws RuntimeException {
+        return prefixTries.computeIfAbsent(key, super::getPrefixTrie);
+    }
+
+    /**
+     * Get a view of the same values in another language. Sources' bundled defaults for the language are loaded
+     * the first time they're needed and kept for as long as the loaded values are current.
+     * @param language the language to read values in
+     * @return the snapshot for the given language, this snapshot if it's already in that language
+     */
+    public ConfigSnapshot inLanguage(Language language) {
+        if (language == this.language) return this;
+        return translations.computeIfAbsent(language, translation -> new ConfigSnapshot(generation, translation, runtime, overlay, states, derived));
+    }
+
+    /**
+     * @return every key that can be looked up in this snapshot, sections included
+     */
+    public Set<String> getKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Provider.State state : states) {
+            collectKeys("", Provider.tree(state.values), keys);
+            collectKeys("", Provider.tree(state.getDefaults(language)), keys);
+            if (translated) collectKeys("", Provider.tree(state.defaults), keys);
+        }
+        runtime.entries.forEach((key, entry) -> keys.add(key));
+        return keys;
+    }
+    private static void collectKeys(String prefix, Map<?, ?> tree, Set<String> keys) {
+        if (tree == null) return;
+        for (Map.Entry<?, ?> entry : tree.entrySet()) {
+            String key = prefix + entry.getKey();
+            keys.add(key);
+            if (entry.getValue() instanceof Map) collectKeys(key + ".", (Map<?, ?>) entry.getValue(), keys);
+        }
+    }
+
+    /**
+     * Resolves every key holding references that hasn't been looked up yet
+     * @return the circular chains of {@code ${key}} references found in this snapshot, whose keys were left
+     * unresolved; empty if every reference could be followed
+     */
+    public List<String> getInterpolationErrors() {
+        resolveAll();
+        return Collections.unmodifiableList(interpolator.getErrors());
+    }
+
+    /**
+     * Resolve every key holding {@code ${references}}, those in lists and sections included, in dependency order
+     */
+    void resolveAll() {
+        runtime.entries.forEach((key, entry) -> {
+            if (entry.node.isInterpolated()) node(key);
+        });
+        overlay.forEach((key, node) -> {
+            if (node.isInterpolated()) node(key);
+        });
+        for (Provider.State state : states) {
+            for (String key : state.getInterpolatedKeys(language)) {
+                try {
+                    node(key);
+                } catch (IllegalArgumentException ignored) {
+                    // pruned from the values and without a default
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the generation of the config this snapshot was taken at, suitable for keying state derived from it
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public Map<String, Object> getRuntimeValues() {
+        Map<String, Object> values = runtimeValues;
+        if (values == null) {
+            Map<String, Object> copy = new HashMap<>(runtime.entries.size() * 2);
+            runtime.entries.forEach((key, entry) -> copy.put(key, entry.value));
+            runtimeValues = values = Collections.unmodifiableMap(copy);
+        }
+        return values;
+    }
+
+}
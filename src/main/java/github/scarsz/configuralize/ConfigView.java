@@ -0,0 +1,475 @@
+package github.scarsz.configuralize;
+
+import alexh.weak.Dynamic;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * The getter API shared by {@link DynamicConfig} and its {@link ConfigSnapshot}s; every getter reads through {@link #node(String)}.
+ * Lists and maps are returned as the node's unmodifiable views rather than copies, copy them to make changes.
+ */
+@SuppressWarnings({"UnusedReturnValue", "unused", "WeakerAccess", "unchecked"})
+public abstract class ConfigView {
+
+    /**
+     * @param key the key to look up
+     * @return the value of the given key
+     * @throws IllegalArgumentException if the key doesn't exist
+     */
+    public abstract ConfigNode node(String key) throws IllegalArgumentException;
+
+    /**
+     * @param key the key to look up
+     * @return the value of the given key adapted to a {@link Dynamic}
+     * @throws IllegalArgumentException if the key doesn't exist
+     */
+    public Dynamic dget(String key) throws IllegalArgumentException {
+        return node(key).toDynamic();
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value of the given key, or a null node if the key doesn't exist
+     */
+    public ConfigNode nodeSilent(String key) {
+        try {
+            return node(key);
+        } catch (IllegalArgumentException e) {
+            return ConfigNode.of(null);
+        }
+    }
+
+    public Dynamic dgetSilent(String key) {
+        try {
+            return dget(key);
+        } catch (IllegalArgumentException e) {
+            return Dynamic.from(null);
+        }
+    }
+
+    public <T> T get(String key) throws RuntimeException {
+        return (T) node(key).asObject();
+    }
+    public <T> Optional<T> getOptional(String key) {
+        try {
+            return Optional.ofNullable(get(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public <T> T getElse(String key, T otherwise) {
+        try {
+            return get(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public <K, V> Map<K, V> getMap(String key) throws RuntimeException {
+        return node(key).asMap();
+    }
+    public <K, V> Optional<Map<K, V>> getOptionalMap(String key) {
+        try {
+            return Optional.ofNullable(getMap(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public <K, V> Map<K, V> getMapElse(String key, Map<K, V> otherwise) {
+        try {
+            return getMap(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public <T> List<T> getList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public <T> Optional<List<T>> getOptionalList(String key) {
+        try {
+            return Optional.ofNullable(
+                    getList(key)
+            );
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public <T> List<T> getListElse(String key, List<T> otherwise) {
+        try {
+            return getList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public String getString(String key) throws RuntimeException {
+        return node(key).asString();
+    }
+    public Optional<String> getOptionalString(String key) {
+        try {
+            return Optional.ofNullable(getString(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public String getStringElse(String key, String otherwise) {
+        try {
+            return getString(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public List<String> getStringList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public Optional<List<String>> getOptionalStringList(String key) {
+        try {
+            return Optional.ofNullable(getStringList(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public List<String> getStringListElse(String key, List<String> otherwise) {
+        try {
+            return getStringList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public boolean getBoolean(String key) throws RuntimeException {
+        ConfigNode node = node(key);
+        if (node.asObject() instanceof Boolean) return (Boolean) node.asObject();
+        return ConfigNode.parseBoolean(node.asString(), "key " + key + " value");
+    }
+    public Optional<Boolean> getOptionalBoolean(String key) {
+        try {
+            return Optional.of(getBoolean(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public boolean getBooleanElse(String key, boolean otherwise) {
+        try {
+            return getBoolean(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public List<Boolean> getBooleanList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public Optional<List<Boolean>> getOptionalBooleanList(String key) {
+        try {
+            return Optional.ofNullable(getBooleanList(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public List<Boolean> getBooleanListElse(String key, List<Boolean> otherwise) {
+        try {
+            return getBooleanList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public int getInt(String key) throws RuntimeException {
+        return node(key).asInt();
+    }
+    public Optional<Integer> getOptionalInt(String key) {
+        try {
+            return Optional.of(getInt(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public int getIntElse(String key, int otherwise) {
+        try {
+            return getInt(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public List<Integer> getIntList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public Optional<List<Integer>> getOptionalIntList(String key) {
+        try {
+            return Optional.ofNullable(getIntList(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public List<Integer> getIntListElse(String key, List<Integer> otherwise) {
+        try {
+            return getIntList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public long getLong(String key) throws RuntimeException {
+        return node(key).asLong();
+    }
+    public Optional<Long> getOptionalLong(String key) {
+        try {
+            return Optional.of(getLong(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public long getLongElse(String key, long otherwise) {
+        try {
+            return getLong(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public List<Long> getLongList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public Optional<List<Long>> getOptionalLongList(String key) {
+        try {
+            return Optional.ofNullable(getLongList(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public List<Long> getLongListElse(String key, List<Long> otherwise) {
+        try {
+            return getLongList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public double getDouble(String key) throws RuntimeException {
+        return node(key).asDouble();
+    }
+    public Optional<Double> getOptionalDouble(String key) {
+        try {
+            return Optional.of(getDouble(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public double getDoubleElse(String key, double otherwise) {
+        try {
+            return getDouble(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public List<Double> getDoubleList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public Optional<List<Double>> getOptionalDoubleList(String key) {
+        try {
+            return Optional.ofNullable(getDoubleList(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public List<Double> getDoubleListElse(String key, List<Double> otherwise) {
+        try {
+            return getDoubleList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public BigDecimal getDecimal(String key) throws RuntimeException {
+        return node(key).asDecimal();
+    }
+    public Optional<BigDecimal> getOptionalDecimal(String key) {
+        try {
+            return Optional.ofNullable(getDecimal(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public BigDecimal getDecimalElse(String key, BigDecimal otherwise) {
+        try {
+            return getDecimal(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    public List<BigDecimal> getDecimalList(String key) throws RuntimeException {
+        return node(key).asList();
+    }
+    public Optional<List<BigDecimal>> getOptionalDecimalList(String key) {
+        try {
+            return Optional.ofNullable(getDecimalList(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+    public List<BigDecimal> getDecimalListElse(String key, List<BigDecimal> otherwise) {
+        try {
+            return getDecimalList(key);
+        } catch (Exception e) {
+            return otherwise;
+        }
+    }
+
+    /**
+     * @param key the key of the message to get
+     * @return the message parsed into a {@link MessageTemplate}
+     */
+    public MessageTemplate getTemplate(String key) throws RuntimeException {
+        return MessageTemplate.parse(getString(key));
+    }
+    public Optional<MessageTemplate> getOptionalTemplate(String key) {
+        try {
+            return Optional.of(getTemplate(key));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Derive a value from a key's string value, such as a compiled pattern or a parsed color.
+     * Configs cache derived values until the key's value changes, so the function should be pure and the same
+     * instance should be passed each time, i.e. a method reference or a lambda stored in a constant.
+     * @param key the key to derive a value from
+     * @param function the function deriving the value from the key's string value
+     * @return the derived value
+     */
+    public <T> T getDerived(String key, Function<String, T> function) throws RuntimeException {
+        return function.apply(node(key).asString());
+    }
+
+    /**
+     * @param key the key of the regular expression to get
+     * @return the compiled pattern
+     */
+    public Pattern getPattern(String key) throws RuntimeException {
+        return getDerived(key, Pattern::compile);
+    }
+
+    /**
+     * Get a duration, written either as ISO-8601 ({@code PT1M30S}) or as numbers with units ({@code 1m 30s},
+     * {@code 1h30m}, {@code 500ms}; {@code d}, {@code h}, {@code m}, {@code s} and {@code ms}). Numbers without a
+     * unit are milliseconds.
+     * @param key the key of the duration to get
+     * @return the parsed duration
+     */
+    public Duration getDuration(String key) throws RuntimeException {
+        return getDerived(key, ConfigView::parseDuration);
+    }
+
+    public URI getURI(String key) throws RuntimeException {
+        return getDerived(key, URI::create);
+    }
+
+    static Duration parseDuration(String value) {
+        String text = value.trim();
+        if (text.startsWith("P") || text.startsWith("p") || text.startsWith("-P")) return Duration.parse(text);
+
+        Duration duration = Duration.ZERO;
+        int position = 0;
+        boolean parsed = false;
+        while (position < text.length()) {
+            if (Character.isWhitespace(text.charAt(position))) {
+                position++;
+                continue;
+            }
+            int numberEnd = position;
+            while (numberEnd < text.length() && Character.isDigit(text.charAt(numberEnd))) numberEnd++;
+            int unitEnd = numberEnd;
+            while (unitEnd < text.length() && Character.isLetter(text.charAt(unitEnd))) unitEnd++;
+            if (numberEnd == position) throw new IllegalArgumentException("Can't parse duration \"" + value + "\"");
+
+            long amount = Long.parseLong(text.substring(position, numberEnd));
+            switch (text.substring(numberEnd, unitEnd).toLowerCase()) {
+                case "d": duration = duration.plusDays(amount); break;
+                case "h": duration = duration.plusHours(amount); break;
+                case "m": duration = duration.plusMinutes(amount); break;
+                case "s": duration = duration.plusSeconds(amount); break;
+                case "":
+                case "ms": duration = duration.plusMillis(amount); break;
+                default: throw new IllegalArgumentException("Unknown unit in duration \"" + value + "\"");
+            }
+            position = unitEnd;
+            parsed = true;
+        }
+        if (!parsed) throw new IllegalArgumentException("Can't parse duration \"" + value + "\"");
+        return duration;
+    }
+
+    /**
+     * @param key the key of the list to get
+     * @return the list's elements as an unmodifiable set
+     */
+    public Set<String> getStringSet(String key) throws RuntimeException {
+        Set<String> set = new LinkedHashSet<>();
+        for (Object value : node(key).asList()) {
+            if (value != null) set.add(value.toString());
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * @param key the key of the list of numbers to get
+     * @return the list's elements as a set of primitive longs
+     */
+    public LongSet getLongSet(String key) throws RuntimeException {
+        return LongSet.of(node(key).asList());
+    }
+
+    /**
+     * @param key the key of the list to get
+     * @return the list's elements as an unmodifiable set that ignores case when checking membership
+     */
+    public Set<String> getCaseInsensitiveSet(String key) throws RuntimeException {
+        return new CaseInsensitiveSet(node(key).asList());
+    }
+
+    /**
+     * @param key the key of the list to get
+     * @return the list's elements as a trie, for checking whether text starts with any of them
+     */
+    public PrefixTrie getPrefixTrie(String key) throws RuntimeException {
+        return PrefixTrie.of(node(key).asList());
+    }
+
+    public <T> T getSilent(String key) {
+        try {
+            return (T) node(key).asObject();
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+    public void getSilent(String key, Consumer<Dynamic> success) {
+        getSilent(key, success, null);
+    }
+    public void getSilent(String key, Consumer<Dynamic> success, Runnable failure) {
+        try {
+            Dynamic dynamic = dget(key);
+            if (success != null) success.accept(dynamic);
+        } catch (IllegalArgumentException e) {
+            if (failure != null) failure.run();
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package github.scarsz.configuralize;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Values derived from config strings, such as compiled patterns, shared by all snapshots of a {@link DynamicConfig}.
+ * <p>
+ * Each entry remembers the node it was derived from. Loads and runtime values replace the nodes of the keys they
+ * change, so an entry is reused for as long as its key's node is the same (or holds an equal value) and recomputed
+ * as soon as it isn't, whatever else changed in between. The cache is bounded; once full, arbitrary entries are
+ * evicted to make room.
+ */
+class DerivedCache {
+
+    private final int maxSize;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    DerivedCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, ConfigNode node, Function<String, T> function) {
+        Key cacheKey = new Key(key, function);
+        Entry entry = entries.get(cacheKey);
+        if (entry != null && (entry.node == node || entry.node.equals(node))) return (T) entry.value;
+
+        T value = function.apply(node.asString());
+        if (entry == null && entries.size() >= maxSize) evict();
+        entries.put(cacheKey, new Entry(node, value));
+        return value;
+    }
+
+    private void evict() {
+        int toEvict = Math.max(maxSize / 4, 1);
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (toEvict-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Key {
+
+        final String key;
+        final Function<?, ?> function;
+
+        Key(String key, Function<?, ?> function) {
+            this.key = key;
+            this.function = function;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return function == other.function && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + System.identityHashCode(function);
+        }
+
+    }
+
+    private static final class Entry {
+
+        final ConfigNode node;
+        final Object value;
+
+        Entry(ConfigNode node, Object value) {
+            this.node = node;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -1,32 +1,58 @@
 package github.scarsz.configuralize;
 
 import alexh.weak.Dynamic;
-import alexh.weak.Weak;
+import github.scarsz.configuralize.backend.ConfigBackend;
+import github.scarsz.configuralize.codec.FormatCodec;
+import github.scarsz.configuralize.codec.JsonCodec;
+import github.scarsz.configuralize.codec.YamlCodec;
+import github.scarsz.configuralize.jfr.ConfigEvents;
 import github.scarsz.configuralize.mapping.MappingFunction;
 import github.scarsz.configuralize.mapping.Option;
-import org.json.simple.parser.JSONParser;
-import org.yaml.snakeyaml.Yaml;
+import github.scarsz.configuralize.mapping.OptionMapper;
+import github.scarsz.configuralize.mapping.OptionMappers;
+import github.scarsz.configuralize.mapping.ReflectiveOptionMapper;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.math.BigDecimal;
+import java.io.InterruptedIOException;
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @SuppressWarnings({"SameParameterValue", "UnusedReturnValue", "unused", "WeakerAccess", "unchecked"})
-public class DynamicConfig {
+public class DynamicConfig extends ConfigView {
 
     private final Map<Source, Provider> sources = new LinkedHashMap<>();
-    private final Map<String, Object> runtimeValues = new HashMap<>();
+    private final RuntimeOverrides runtimeValues = new RuntimeOverrides();
+    private final DerivedCache derived = new DerivedCache(1024);
+    private final Object lock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<ConfigSnapshot> snapshot = new AtomicReference<>();
     private Language language;
+    private final Map<String, FormatCodec> codecs = new ConcurrentHashMap<>();
+    private volatile RuntimePersistence persistence = null;
+    private volatile EnvironmentOverlay overlay = null;
+    private boolean strictValidation = false;
+    private BackendPoller poller = null;
 
     public DynamicConfig() {
         this(Language.EN);
     }
     public DynamicConfig(Language language) {
         this.language = language;
+        registerCodec(new YamlCodec());
+        registerCodec(new JsonCodec());
+        getDiscoveredCodecs().forEach(this::registerCodec);
     }
 
     /**
@@ -50,7 +76,10 @@ public class DynamicConfig {
      * @return true if this source wasn't already in the dynamic config
      */
     public boolean addSource(Source source) {
-        return sources.put(source, new Provider(this, source)) == null;
+        synchronized (lock) {
+            invalidate();
+            return sources.put(source, new Provider(this, source)) == null;
+        }
     }
 
     /**
@@ -61,8 +90,19 @@ public class DynamicConfig {
      * @return true if this source wasn't already in the dynamic config
      */
     public boolean addSource(Class<?> clazz, String resource, File file) {
-        Source source = new Source(this, clazz, resource, file);
-        return sources.put(source, new Provider(this, source)) == null;
+        return addSource(new Source(this, clazz, resource, file));
+    }
+
+    /**
+     * Add a source whose values are fetched from the given backend, see {@link ConfigBackend}
+     * @param clazz The class that should provide the resource
+     * @param resource The name of the resource, i.e. "config" in /resources/config/en.yml
+     * @param file The file that caches the last good values fetched from the backend
+     * @param backend The backend that provides this source's values
+     * @return true if this source wasn't already in the dynamic config
+     */
+    public boolean addSource(Class<?> clazz, String resource, File file, ConfigBackend backend) {
+        return addSource(new Source(this, clazz, resource, file, backend));
     }
 
     /**
@@ -71,7 +111,10 @@ public class DynamicConfig {
      * @return true if this source was in the dynamic config and thus removed
      */
     public boolean removeSource(Source source) {
-        return sources.remove(source) != null;
+        synchronized (lock) {
+            invalidate();
+            return sources.remove(source) != null;
+        }
     }
 
     /**
@@ -83,20 +126,134 @@ public class DynamicConfig {
     }
 
     /**
-     * Saves all of the linked sources to the file
+     * Blocking file IO for {@link #saveAllDefaults(boolean)}, kept off the common pool. Shared by every config and
+     * bounded by the processor count; its daemon threads exit after a second idle, so saving at startup neither
+     * leaves threads behind nor starts a pool per call.
+     */
+    private static final ThreadPoolExecutor SAVE_EXECUTOR;
+    static {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        SAVE_EXECUTOR = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Configuralize save");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SAVE_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Saves all of the linked sources to the file, in parallel on a pool shared by all configs.
+     * Files already identical to their bundled resource are skipped, see {@link Provider#saveDefaultsIfChanged(boolean)}.
+     * A failing source doesn't stop the others from being saved; the first failure is thrown once every source
+     * was attempted, with the others suppressed.
      * @param overwrite whether or not to skip saving defaults if the file already exists
      * @throws IOException if saving to the file fails
      */
     public void saveAllDefaults(boolean overwrite) throws IOException {
-        for (Map.Entry<Source, Provider> source : this.sources.entrySet()) {
-            source.getValue().saveDefaults(overwrite);
+        List<Provider> providers = new ArrayList<>(this.sources.values());
+        if (providers.isEmpty()) return;
+        if (providers.size() == 1) {
+            providers.get(0).saveDefaults(overwrite);
+            return;
+        }
+
+        List<Future<?>> saves = new ArrayList<>(providers.size());
+        for (Provider provider : providers) {
+            saves.add(SAVE_EXECUTOR.submit(() -> {
+                provider.saveDefaults(overwrite);
+                return null;
+            }));
         }
+
+        Throwable failure = null;
+        for (int i = 0; i < saves.size(); i++) {
+            try {
+                saves.get(i).get();
+            } catch (InterruptedException e) {
+                // sources already being saved finish on their own, the rest are skipped
+                saves.subList(i, saves.size()).forEach(save -> save.cancel(false));
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException("Interrupted while saving defaults");
+                if (failure != null) interrupted.addSuppressed(failure);
+                throw interrupted;
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
     }
 
+    /**
+     * Loads all of the linked sources. Values that don't match the type of their default are reported by
+     * {@link #getValidationErrors()} and replaced by the default, or fail loading when strict validation is enabled,
+     * in which case none of the sources' values are applied. {@code ${key}} references are resolved as part of
+     * loading; circular ones are reported by {@link #getInterpolationErrors()}, or fail loading when strict
+     * validation is enabled.
+     * @throws IOException if reading a source fails
+     * @throws ParseException if a source can't be parsed
+     * @throws ValidationException if strict validation is enabled and values don't match their source's {@link Schema}
+     * or reference each other in a cycle
+     */
     public void loadAll() throws IOException, ParseException {
+        // read and validate everything first, then apply it all under the lock so a snapshot never mixes two loads
+        Map<Provider, Provider.State> loaded = new LinkedHashMap<>();
         for (Map.Entry<Source, Provider> source : this.sources.entrySet()) {
-            source.getValue().load();
+            loaded.put(source.getValue(), source.getValue().read());
+        }
+        if (strictValidation) {
+            List<String> errors = loaded.values().stream()
+                    .flatMap(state -> state.validationErrors.stream())
+                    .collect(Collectors.toList());
+            if (errors.isEmpty()) {
+                // resolve the references of what would be applied before anything is
+                errors = buildSnapshot(generation.get(), new ArrayList<>(loaded.values())).getInterpolationErrors();
+            }
+            if (!errors.isEmpty()) throw new ValidationException(errors);
+        }
+        synchronized (lock) {
+            loaded.forEach(Provider::apply);
+            invalidate();
         }
+        for (Map.Entry<Provider, Provider.State> state : loaded.entrySet()) {
+            state.getKey().cacheFetch(state.getValue());
+        }
+        // build the snapshot and resolve its references now rather than on the first lookup
+        snapshot().resolveAll();
+    }
+
+    /**
+     * @return every value of the loaded sources that didn't match the type of its default
+     */
+    public List<String> getValidationErrors() {
+        return sources.values().stream()
+                .flatMap(provider -> provider.getValidationErrors().stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the circular chains of {@code ${key}} references between the current values. Keys taking part in a
+     * cycle keep their raw values; every other key resolves as usual.
+     * @see ConfigSnapshot#getInterpolationErrors()
+     */
+    public List<String> getInterpolationErrors() {
+        return snapshot().getInterpolationErrors();
+    }
+
+    public boolean isStrictValidation() {
+        return strictValidation;
+    }
+    /**
+     * @param strictValidation whether {@link #loadAll()} should throw a {@link ValidationException} listing all
+     *                         values that don't match their default's type instead of falling back to the defaults
+     */
+    public void setStrictValidation(boolean strictValidation) {
+        this.strictValidation = strictValidation;
     }
 
     /**
@@ -123,415 +280,479 @@ public class DynamicConfig {
         map(targetClass, Arrays.asList(mappings));
     }
     /**
-     * Map this config's values to the target class's static fields marked with {@link Option}
+     * Map this config's values to the target class's static fields marked with {@link Option}.
+     * Classes compiled with {@link github.scarsz.configuralize.mapping.OptionProcessor} are mapped by their
+     * generated {@link OptionMapper} without reflection, others fall back to a {@link ReflectiveOptionMapper}.
      * @param targetClass the class to map values to
      * @param mappings mapping functions to use when mapping values to the appropriate type
      */
     public void map(Class<?> targetClass, List<MappingFunction<?>> mappings) {
-        mapFields(targetClass, mappings);
-        for (Class<?> declared : targetClass.getDeclaredClasses()) {
+        ConfigEvents.Map event = ConfigEvents.get().beginMap(targetClass);
+        OptionMapper mapper = OptionMappers.get(targetClass);
+        if (mapper == null) mapper = new ReflectiveOptionMapper(targetClass);
+        try {
+            event.mapped(mapper.map(this, mappings));
+        } catch (RuntimeException | Error e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+
+        Class<?>[] nestedClasses = mapper.getNestedClasses();
+        if (nestedClasses == null) nestedClasses = new ReflectiveOptionMapper(targetClass).getNestedClasses(); // some are private
+        for (Class<?> declared : nestedClasses) {
             map(declared, mappings);
         }
     }
 
     /**
-     * Iterate over the given class's declared static fields, setting fields marked with {@link Option} to the option value
-     * @param clazz the class to iterate fields for
-     * @param mappings mapping functions to use when mapping values to the appropriate type
+     * Get an immutable view of this config's current values, with {@code ${other.key}} references inside values
+     * resolved across all sources. The snapshot isn't affected by later loads or runtime
+     * value changes, so many keys can be read from it consistently without locking. Snapshots are shared until
+     * something changes, at which point the next call builds a new one with a higher {@link ConfigSnapshot#getGeneration()}.
+     * Building one costs the same however many values there are, and doesn't block other readers.
+     * @return the snapshot of this config's current values
      */
-    private void mapFields(Class<?> clazz, List<MappingFunction<?>> mappings) {
-        for (Field field : clazz.getDeclaredFields()) {
-            if (!Modifier.isStatic(field.getModifiers())) continue;
-
-            if (!field.isAnnotationPresent(Option.class)) continue;
-            Option fieldAnnotation = field.getAnnotation(Option.class);
-            String key = fieldAnnotation.key();
-
-            if (!field.isAccessible()) {
-                field.setAccessible(true);
-            }
+    public ConfigSnapshot snapshot() {
+        if (runtimeValues.purge()) invalidate();
+        // read the generation before the values, so a change racing this build can only make it newer than labeled
+        long generation = this.generation.get();
+        ConfigSnapshot snapshot = this.snapshot.get();
+        if (snapshot != null && snapshot.getGeneration() == generation) return snapshot;
 
-            boolean valueExists = Modifier.isFinal(field.getModifiers());
-            if (valueExists) {
-                try {
-                    Field modifiersField = Field.class.getDeclaredField("modifiers");
-                    modifiersField.setAccessible(true);
-                    modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
-                } catch (IllegalAccessException | NoSuchFieldException e) {
-                    throw new RuntimeException("Failed to reflectively set field " + field + " to non-final", e);
-                }
-            }
-
-            try {
-                Object value;
-                Dynamic dynamic = dgetSilent(key);
-                MappingFunction<?> mappingFunction = mappings != null
-                        ? mappings.stream().filter(mf -> mf.getKey().equals(key)).findFirst().orElse(null)
-                        : null;
-
-                if (mappingFunction != null) {
-                    value = mappingFunction.getFunction().apply(dynamic);
-                } else {
-                    switch (field.getType().getName().toLowerCase()) {
-                        case "int":
-                        case "integer":
-                            value = dynamic.convert().intoInteger();
-                            break;
-                        case "double":
-                            value = dynamic.convert().intoDouble();
-                            break;
-                        default:
-                            value = dynamic.asObject();
-                            break;
-                    }
-                }
-                field.set(null, value);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("Field " + field + " is not accessible");
-            } catch (Throwable e) {
-                throw new RuntimeException("Failed to map key " + key, e);
-            }
+        // the states and runtime layer are immutable, so only collecting the states needs the lock
+        List<Provider.State> states;
+        synchronized (lock) {
+            states = new ArrayList<>(sources.size());
+            for (Provider provider : sources.values()) states.add(provider.getState());
+        }
+        ConfigSnapshot built = buildSnapshot(generation, states);
+        while (true) {
+            // share a snapshot at least as new that another thread published meanwhile
+            snapshot = this.snapshot.get();
+            if (snapshot != null && snapshot.getGeneration() >= generation) return snapshot;
+            if (this.snapshot.compareAndSet(snapshot, built)) return built;
         }
     }
 
-    public Dynamic dget(String key) throws IllegalArgumentException {
-        if (runtimeValues.containsKey(key)) return Dynamic.from(runtimeValues.get(key));
-        return sources.values().stream()
-                .filter(Objects::nonNull)
-                .filter(provider -> provider.getValues() != null)
-                .map(provider -> provider.getValues().dget(key))
-                .filter(Objects::nonNull)
-                .filter(Weak::isPresent)
-                .findFirst().orElseGet(() -> sources.values().stream()
-                        .map(provider -> provider.getDefaults().dget(key))
-                        .filter(Weak::isPresent)
-                        .findFirst().orElseThrow(() -> new IllegalArgumentException("Invalid key: " + key)));
-    }
-    public Dynamic dgetSilent(String key) {
-        try {
-            return dget(key);
-        } catch (IllegalArgumentException e) {
-            return Dynamic.from(null);
-        }
+    private ConfigSnapshot buildSnapshot(long generation, List<Provider.State> states) {
+        EnvironmentOverlay overlay = this.overlay;
+        Map<String, ConfigNode> overlaid = overlay != null ? overlay.resolve(states) : Collections.emptyMap();
+        return new ConfigSnapshot(generation, language, runtimeValues.current(), overlaid, states, derived);
     }
 
-    public <T> T get(String key) throws RuntimeException {
-        return (T) dget(key).asObject();
+    /**
+     * Get an immutable view of this config's current values in the given language, see {@link ConfigSnapshot#inLanguage(Language)}
+     * @param language the language to read values in
+     * @return the snapshot of this config's current values in the given language
+     */
+    public ConfigSnapshot snapshot(Language language) {
+        return snapshot().inLanguage(language);
     }
-    public <T> Optional<T> getOptional(String key) {
-        try {
-            return Optional.ofNullable(get(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Export this config's current values to a file that can be served off-heap with {@link MappedConfig#open(File)}
+     * @param file the file to write to
+     * @throws IOException if writing fails
+     */
+    public void export(File file) throws IOException {
+        MappedConfig.export(snapshot(), file);
     }
-    public <T> T getElse(String key, T otherwise) {
-        try {
-            return get(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * @return the current generation of this config, incremented whenever sources, loaded values or runtime values change
+     */
+    public long getGeneration() {
+        return generation.get();
     }
 
-    public <K, V> Map<K, V> getMap(String key) throws RuntimeException {
-        return (Map<K, V>) dget(key).convert().intoMap();
+    void invalidate() {
+        generation.incrementAndGet();
     }
-    public <K, V> Optional<Map<K, V>> getOptionalMap(String key) {
-        try {
-            return Optional.ofNullable(getMap(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    Object getLock() {
+        return lock;
     }
-    public <K, V> Map<K, V> getMapElse(String key, Map<K, V> otherwise) {
-        try {
-            return getMap(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    @Override
+    public ConfigNode node(String key) throws IllegalArgumentException {
+        return snapshot().node(key);
     }
 
-    public <T> List<T> getList(String key) throws RuntimeException {
-        return (List<T>) dget(key).convert().intoList();
+    public ConfigNode node(String key, Language language) throws IllegalArgumentException {
+        return snapshot(language).node(key);
     }
-    public <T> Optional<List<T>> getOptionalList(String key) {
-        try {
-            return Optional.ofNullable(
-                    getList(key)
-            );
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+    public Dynamic dget(String key, Language language) throws IllegalArgumentException {
+        return snapshot(language).dget(key);
     }
-    public <T> List<T> getListElse(String key, List<T> otherwise) {
-        try {
-            return getList(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+    public <T> T get(String key, Language language) throws RuntimeException {
+        return snapshot(language).get(key);
     }
-
-    public String getString(String key) throws RuntimeException {
-        return dget(key).convert().intoString();
+    public String getString(String key, Language language) throws RuntimeException {
+        return snapshot(language).getString(key);
     }
-    public Optional<String> getOptionalString(String key) {
-        try {
-            return Optional.ofNullable(getString(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+    public Optional<String> getOptionalString(String key, Language language) {
+        return snapshot(language).getOptionalString(key);
     }
-    public String getStringElse(String key, String otherwise) {
-        try {
-            return getString(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+    public String getStringElse(String key, Language language, String otherwise) {
+        return snapshot(language).getStringElse(key, otherwise);
     }
-
-    public List<String> getStringList(String key) throws RuntimeException {
-        return (List<String>) dget(key).convert().intoList();
+    public List<String> getStringList(String key, Language language) throws RuntimeException {
+        return snapshot(language).getStringList(key);
     }
-    public Optional<List<String>> getOptionalStringList(String key) {
-        try {
-            return Optional.ofNullable(getStringList(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    @Override
+    public MessageTemplate getTemplate(String key) throws RuntimeException {
+        return snapshot().getTemplate(key);
     }
-    public List<String> getStringListElse(String key, List<String> otherwise) {
-        try {
-            return getStringList(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+    public MessageTemplate getTemplate(String key, Language language) throws RuntimeException {
+        return snapshot(language).getTemplate(key);
     }
 
-    public boolean getBoolean(String key) throws RuntimeException {
-        String value = dget(key).convert().intoString();
-        switch (value.toLowerCase()) {
-            case "true":
-            case "yes":
-            case "on":
-            case "1":
-                return true;
-            case "false":
-            case "no":
-            case "off":
-            case "0":
-                return false;
-            default:
-                throw new RuntimeException("Can't convert key " + key + " value \"" + value + "\" to boolean");
-        }
+    @Override
+    public <T> T getDerived(String key, Function<String, T> function) throws RuntimeException {
+        return snapshot().getDerived(key, function);
     }
-    public Optional<Boolean> getOptionalBoolean(String key) {
-        try {
-            return Optional.of(getBoolean(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+    @Override
+    public Set<String> getStringSet(String key) throws RuntimeException {
+        return snapshot().getStringSet(key);
     }
-    public boolean getBooleanElse(String key, boolean otherwise) {
-        try {
-            return getBoolean(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+    @Override
+    public LongSet getLongSet(String key) throws RuntimeException {
+        return snapshot().getLongSet(key);
     }
-
-    public List<Boolean> getBooleanList(String key) throws RuntimeException {
-        return (List<Boolean>) dget(key).convert().intoList();
+    @Override
+    public Set<String> getCaseInsensitiveSet(String key) throws RuntimeException {
+        return snapshot().getCaseInsensitiveSet(key);
     }
-    public Optional<List<Boolean>> getOptionalBooleanList(String key) {
-        try {
-            return Optional.ofNullable(getBooleanList(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+    @Override
+    public PrefixTrie getPrefixTrie(String key) throws RuntimeException {
+        return snapshot().getPrefixTrie(key);
     }
-    public List<Boolean> getBooleanListElse(String key, List<Boolean> otherwise) {
-        try {
-            return getBooleanList(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * Override a key's value until it's cleared. Runtime values take precedence over every source and are seen
+     * by the next lookup from any thread.
+     * @param key the key to override
+     * @param value the value to override the key with
+     */
+    public void setRuntimeValue(String key, Object value) {
+        runtimeValues.put(key, value, 0);
+        invalidate();
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null) persistence.changed(key);
     }
 
-    public int getInt(String key) throws RuntimeException {
-        return dget(key).convert().intoInteger();
+    /**
+     * Override a key's value for a limited time. Temporary values aren't persisted; a persisted value they
+     * replace is removed from the persisted values.
+     * @param key the key to override
+     * @param value the value to override the key with
+     * @param ttl how long the override lasts
+     * @param unit the unit of the time to live
+     */
+    public void setRuntimeValue(String key, Object value, long ttl, TimeUnit unit) {
+        RuntimeOverrides.Entry replaced = runtimeValues.put(key, value, Math.max(unit.toNanos(ttl), 1));
+        invalidate();
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null && replaced != null && !replaced.expires) persistence.changed(key);
     }
-    public Optional<Integer> getOptionalInt(String key) {
-        try {
-            return Optional.of(getInt(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Override several keys at once, making them all visible together
+     * @param values the keys to override mapped to their values
+     */
+    public void setRuntimeValues(Map<String, ?> values) {
+        runtimeValues.putAll(values, 0);
+        invalidate();
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null) values.keySet().forEach(persistence::changed);
     }
-    public int getIntElse(String key, int otherwise) {
-        try {
-            return getInt(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * Override several keys at once for a limited time, making them all visible together
+     * @param values the keys to override mapped to their values
+     * @param ttl how long the overrides last
+     * @param unit the unit of the time to live
+     * @see #setRuntimeValue(String, Object, long, TimeUnit)
+     */
+    public void setRuntimeValues(Map<String, ?> values, long ttl, TimeUnit unit) {
+        Set<String> replacedPermanent = runtimeValues.putAll(values, Math.max(unit.toNanos(ttl), 1));
+        invalidate();
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null) replacedPermanent.forEach(persistence::changed);
     }
 
-    public List<Integer> getIntList(String key) throws RuntimeException {
-        return (List<Integer>) dget(key).convert().intoList();
+    /**
+     * Remove a key's runtime value, restoring the value from its source
+     * @param key the key to clear
+     * @return true if the key had a runtime value that hadn't expired yet
+     */
+    public boolean clearRuntimeValue(String key) {
+        boolean removed = runtimeValues.remove(key);
+        invalidate();
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null) persistence.changed(key);
+        return removed;
     }
-    public Optional<List<Integer>> getOptionalIntList(String key) {
-        try {
-            return Optional.ofNullable(getIntList(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Remove the runtime values of the given keys, all at once
+     * @param keys the keys to clear
+     */
+    public void clearRuntimeValues(Collection<String> keys) {
+        Set<String> removed = runtimeValues.removeAll(keys);
+        invalidate();
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null) removed.forEach(persistence::changed);
     }
-    public List<Integer> getIntListElse(String key, List<Integer> otherwise) {
-        try {
-            return getIntList(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * Remove all runtime values
+     */
+    public void clearRuntimeValues() {
+        clearRuntimeValues(getRuntimeValues().keySet());
     }
 
-    public long getLong(String key) throws RuntimeException {
-        return dget(key).convert().intoLong();
+    /**
+     * Override keys from environment variables and system properties, see {@link EnvironmentOverlay}.
+     * Overlaid values take precedence over sources, runtime values take precedence over them.
+     * @param overlay the overlay to use, or null to stop overlaying
+     */
+    public void setEnvironmentOverlay(EnvironmentOverlay overlay) {
+        this.overlay = overlay;
+        invalidate();
     }
-    public Optional<Long> getOptionalLong(String key) {
-        try {
-            return Optional.of(getLong(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+    public EnvironmentOverlay getEnvironmentOverlay() {
+        return overlay;
     }
-    public long getLongElse(String key, long otherwise) {
-        try {
-            return getLong(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * @return a copy of the runtime values currently set, leaving out expired ones
+     */
+    public Map<String, Object> getRuntimeValues() {
+        return runtimeValues.copy(System.nanoTime());
     }
 
-    public List<Long> getLongList(String key) throws RuntimeException {
-        return (List<Long>) dget(key).convert().intoList();
+    /**
+     * @return a copy of the runtime values set without a time to live
+     */
+    Map<String, Object> getPermanentRuntimeValues() {
+        return runtimeValues.getPermanent();
     }
-    public Optional<List<Long>> getOptionalLongList(String key) {
-        try {
-            return Optional.ofNullable(getLongList(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Persist runtime values to the given sidecar file, restoring any values previously persisted to it.
+     * Writes happen on a background thread once runtime values have been left unchanged for the debounce period,
+     * so any number of {@link #setRuntimeValue(String, Object)} calls in a burst result in a single write.
+     * Values that keep changing are still written at least every ten debounce periods.
+     * @param sidecar the .yml or .json file to persist runtime values to
+     * @param debounce how long runtime values have to be left unchanged before they're written
+     * @param unit the unit of the debounce period
+     * @throws IOException if reading the sidecar file or writing the previous persistence's pending changes fails
+     * @throws ParseException if the sidecar file can't be parsed
+     */
+    public void enableRuntimePersistence(File sidecar, long debounce, TimeUnit unit) throws IOException, ParseException {
+        enableRuntimePersistence(sidecar, debounce, debounce * 10, unit);
     }
-    public List<Long> getLongListElse(String key, List<Long> otherwise) {
-        try {
-            return getLongList(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * Persist runtime values to the given sidecar file, see {@link #enableRuntimePersistence(File, long, TimeUnit)}.
+     * Pending changes of persistence enabled before are written first.
+     * @param sidecar the .yml or .json file to persist runtime values to
+     * @param debounce how long runtime values have to be left unchanged before they're written
+     * @param maxWait how long changed runtime values are written after at most, however often they keep changing
+     * @param unit the unit of the debounce period and maximum wait
+     * @throws IOException if reading the sidecar file or writing the previous persistence's pending changes fails
+     * @throws ParseException if the sidecar file can't be parsed
+     */
+    public void enableRuntimePersistence(File sidecar, long debounce, long maxWait, TimeUnit unit) throws IOException, ParseException {
+        RuntimePersistence persistence = new RuntimePersistence(this, sidecar, debounce, maxWait, unit);
+        Map<String, Object> persisted = persistence.read();
+        runtimeValues.putAllIfAbsent(persisted);
+        invalidate();
+        replacePersistence(persistence);
     }
 
-    public double getDouble(String key) throws RuntimeException {
-        return dget(key).convert().intoDouble();
+    /**
+     * Persist runtime values by writing them back into the file of the source that owns each key.
+     * Clearing a runtime value restores the value the file had before it was written back.
+     * Note that rewriting a file this way doesn't preserve its comments or formatting.
+     * @param debounce how long runtime values have to be left unchanged before they're written
+     * @param unit the unit of the debounce period
+     * @throws IOException if writing the previous persistence's pending changes fails
+     * @throws ParseException if a source file being written back to can't be parsed
+     * @see #enableRuntimePersistence(File, long, TimeUnit)
+     */
+    public void enableRuntimePersistence(long debounce, TimeUnit unit) throws IOException, ParseException {
+        enableRuntimePersistence(debounce, debounce * 10, unit);
     }
-    public Optional<Double> getOptionalDouble(String key) {
-        try {
-            return Optional.of(getDouble(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Persist runtime values by writing them back into the file of the source that owns each key,
+     * see {@link #enableRuntimePersistence(long, TimeUnit)}
+     * @param debounce how long runtime values have to be left unchanged before they're written
+     * @param maxWait how long changed runtime values are written after at most, however often they keep changing
+     * @param unit the unit of the debounce period and maximum wait
+     * @throws IOException if writing the previous persistence's pending changes fails
+     * @throws ParseException if a source file being written back to can't be parsed
+     */
+    public void enableRuntimePersistence(long debounce, long maxWait, TimeUnit unit) throws IOException, ParseException {
+        replacePersistence(new RuntimePersistence(this, null, debounce, maxWait, unit));
     }
-    public double getDoubleElse(String key, double otherwise) {
+
+    private void replacePersistence(RuntimePersistence persistence) throws IOException, ParseException {
+        RuntimePersistence previous;
+        synchronized (this) {
+            previous = this.persistence;
+            this.persistence = persistence;
+        }
+        if (previous == null) return;
         try {
-            return getDouble(key);
-        } catch (Exception e) {
-            return otherwise;
+            previous.flush();
+        } catch (IOException | ParseException | RuntimeException e) {
+            // don't lose the changes, the new persistence writes them instead
+            previous.getDirty().forEach(persistence::changed);
+            throw e;
         }
     }
 
-    public List<Double> getDoubleList(String key) throws RuntimeException {
-        return (List<Double>) dget(key).convert().intoList();
+    /**
+     * Stop persisting runtime values, writing any pending changes first
+     * @throws IOException if writing pending changes fails
+     * @throws ParseException if a source file being written back to can't be parsed
+     */
+    public void disableRuntimePersistence() throws IOException, ParseException {
+        RuntimePersistence persistence = this.persistence;
+        this.persistence = null;
+        if (persistence != null) persistence.flush();
     }
-    public Optional<List<Double>> getOptionalDoubleList(String key) {
-        try {
-            return Optional.ofNullable(getDoubleList(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Write pending runtime value changes now instead of waiting for the debounce period to pass
+     * @throws IOException if writing fails
+     * @throws ParseException if a source file being written back to can't be parsed
+     */
+    public void flushRuntimeValues() throws IOException, ParseException {
+        RuntimePersistence persistence = this.persistence;
+        if (persistence != null) persistence.flush();
     }
-    public List<Double> getDoubleListElse(String key, List<Double> otherwise) {
-        try {
-            return getDoubleList(key);
-        } catch (Exception e) {
-            return otherwise;
-        }
+
+    /**
+     * @return why the last write of persisted runtime values failed, or null if it succeeded or persistence is disabled.
+     * Background writes that fail are retried on the next change or {@link #flushRuntimeValues()}.
+     */
+    public Exception getLastPersistenceFailure() {
+        RuntimePersistence persistence = this.persistence;
+        return persistence != null ? persistence.getLastFailure() : null;
     }
 
-    public BigDecimal getDecimal(String key) throws RuntimeException {
-        return dget(key).convert().intoDecimal();
+    /**
+     * Start polling the backends of sources added with a {@link ConfigBackend}, backing off up to 32 times the
+     * interval when polls fail
+     * @param interval how often to poll each backend
+     * @param unit the unit of the interval
+     */
+    public void startPolling(long interval, TimeUnit unit) {
+        startPolling(interval, interval * 32, unit);
     }
-    public Optional<BigDecimal> getOptionalDecimal(String key) {
-        try {
-            return Optional.ofNullable(getDecimal(key));
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+
+    /**
+     * Start polling the backends of sources added with a {@link ConfigBackend}. Unchanged content is skipped
+     * without being transferred or parsed; when a poll fails the source keeps its last good values and the next
+     * poll backs off exponentially, up to the given maximum. All delays are jittered by up to 20%.
+     * @param interval how often to poll each backend
+     * @param maxBackoff the longest delay between polls of a failing backend
+     * @param unit the unit of the interval and maximum backoff
+     */
+    public synchronized void startPolling(long interval, long maxBackoff, TimeUnit unit) {
+        stopPolling();
+        poller = new BackendPoller(this, interval, maxBackoff, unit);
+        poller.start();
     }
-    public BigDecimal getDecimalElse(String key, BigDecimal otherwise) {
-        try {
-            return getDecimal(key);
-        } catch (Exception e) {
-            return otherwise;
+
+    public synchronized void stopPolling() {
+        if (poller != null) {
+            poller.stop();
+            poller = null;
         }
     }
 
-    public List<BigDecimal> getDecimalList(String key) throws RuntimeException {
-        return (List<BigDecimal>) dget(key).convert().intoList();
-    }
-    public Optional<List<BigDecimal>> getOptionalDecimalList(String key) {
-        try {
-            return Optional.ofNullable(getDecimalList(key));
-        } catch (Exception e) {
-            return Optional.empty();
+    /**
+     * Stop polling backends and persisting runtime values, writing any pending changes first, and stop the
+     * config's background thread. The config stays usable; polling or persistence started afterwards starts a new thread.
+     * @throws IOException if writing pending runtime value changes fails
+     * @throws ParseException if a source file being written back to can't be parsed
+     */
+    public void shutdown() throws IOException, ParseException {
+        stopPolling();
+        try {
+            disableRuntimePersistence();
+        } finally {
+            ScheduledExecutorService scheduler;
+            synchronized (this) {
+                scheduler = this.scheduler;
+                this.scheduler = null;
+            }
+            if (scheduler != null) scheduler.shutdownNow();
         }
     }
-    public List<BigDecimal> getDecimalListElse(String key, List<BigDecimal> otherwise) {
-        try {
-            return getDecimalList(key);
-        } catch (Exception e) {
-            return otherwise;
+
+    private ScheduledExecutorService scheduler = null;
+    synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Configuralize");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        return scheduler;
     }
 
-    public <T> T getSilent(String key) {
-        try {
-            return (T) dget(key).asObject();
-        } catch (IllegalArgumentException ignored) {
-            return null;
+    /**
+     * Register the given codec for each of the extensions it handles, replacing codecs previously registered for them
+     * @param codec the codec to register
+     */
+    public void registerCodec(FormatCodec codec) {
+        for (String extension : codec.getExtensions()) {
+            codecs.put(extension.toLowerCase(), codec);
         }
     }
-    public void getSilent(String key, Consumer<Dynamic> success) {
-        getSilent(key, success, null);
-    }
-    public void getSilent(String key, Consumer<Dynamic> success, Runnable failure) {
-        try {
-            Dynamic dynamic = dget(key);
-            if (success != null) success.accept(dynamic);
-        } catch (IllegalArgumentException e) {
-            if (failure != null) failure.run();
-        }
+
+    /**
+     * @param extension the file extension, without the leading dot
+     * @return the codec registered for the given extension, or null if there is none
+     */
+    public FormatCodec getCodec(String extension) {
+        return codecs.get(extension.toLowerCase());
     }
 
-    public void setRuntimeValue(String key, Object value) {
-        runtimeValues.put(key, value);
+    /**
+     * @param file the file to get a codec for
+     * @return the codec registered for the given file's extension
+     * @throws IllegalArgumentException if no codec is registered for the extension
+     */
+    public FormatCodec getCodec(File file) throws IllegalArgumentException {
+        String extension = file.getName().substring(file.getName().lastIndexOf(".") + 1);
+        FormatCodec codec = getCodec(extension);
+        if (codec == null) throw new IllegalArgumentException("Config source extension " + extension + " is not supported");
+        return codec;
     }
 
-    private JSONParser jsonParser = null;
-    JSONParser getJsonParser() {
-        return jsonParser != null ? jsonParser : (jsonParser = new JSONParser());
+    public Map<String, FormatCodec> getCodecs() {
+        return Collections.unmodifiableMap(codecs);
     }
 
-    private Yaml yamlParser = null;
-    Yaml getYamlParser() {
-        return yamlParser != null ? yamlParser : (yamlParser = new Yaml());
+    private static List<FormatCodec> discoveredCodecs = null;
+    private static synchronized List<FormatCodec> getDiscoveredCodecs() {
+        if (discoveredCodecs == null) {
+            List<FormatCodec> codecs = new ArrayList<>();
+            ServiceLoader.load(FormatCodec.class, DynamicConfig.class.getClassLoader()).forEach(codecs::add);
+            discoveredCodecs = Collections.unmodifiableList(codecs);
+        }
+        return discoveredCodecs;
     }
 
     public Language getLanguage() {
@@ -539,6 +760,7 @@ public class DynamicConfig {
     }
     public void setLanguage(Language language) {
         this.language = language;
+        invalidate();
     }
     
     public Map<Source, Provider> getSources() {
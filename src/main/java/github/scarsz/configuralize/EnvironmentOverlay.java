@@ -0,0 +1,159 @@
+package github.scarsz.configuralize;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Overrides config keys from environment variables and system properties, for deployments configured through
+ * their environment.
+ * <p>
+ * Variables and properties are scanned once, when the overlay is created. Names are matched to keys by
+ * normalizing both: by default everything but letters and digits becomes {@code _} and letters are upper cased,
+ * so with the prefix {@code APP_} the variable {@code APP_MORE_CONFIG_KEYS_INNER} and, with the prefix
+ * {@code app.}, the property {@code -Dapp.more-config-keys.inner} both override {@code more config keys.inner}.
+ * Names that match no key, or more than one key because several keys normalize to the same name, are ignored and
+ * reported by {@link #getIgnored()}. Values are converted to the type of the key's default (lists are
+ * comma separated). System properties win over environment variables; runtime values win over both.
+ * <p>
+ * Overridden values are merged in when a snapshot is built, so they cost nothing per lookup.
+ */
+@SuppressWarnings("WeakerAccess")
+public class EnvironmentOverlay {
+
+    /**
+     * The default naming rule: upper case, with every run of characters other than letters and digits replaced by {@code _}
+     */
+    public static final Function<String, String> DEFAULT_NORMALIZER = name -> {
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean separator = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (separator && normalized.length() > 0) normalized.append('_');
+                normalized.append(Character.toUpperCase(c));
+                separator = false;
+            } else {
+                separator = true;
+            }
+        }
+        return normalized.toString();
+    };
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final Map<String, String> names = new LinkedHashMap<>();
+    private Function<String, String> normalizer = DEFAULT_NORMALIZER;
+    private final Map<String, String> ignored = new LinkedHashMap<>();
+
+    private List<Provider.State> resolvedStates = null;
+    private Map<String, ConfigNode> resolved = Collections.emptyMap();
+
+    /**
+     * Overlay the current process's environment variables and system properties
+     * @param environmentPrefix the prefix of environment variables to use, i.e. {@code APP_}; null to use none
+     * @param propertyPrefix the prefix of system properties to use, i.e. {@code app.}; null to use none
+     */
+    public EnvironmentOverlay(String environmentPrefix, String propertyPrefix) {
+        this(environmentPrefix, System.getenv(), propertyPrefix, System.getProperties());
+    }
+
+    /**
+     * Overlay the given variables and properties
+     * @param environmentPrefix the prefix of environment variables to use; null to use none
+     * @param environment the environment variables
+     * @param propertyPrefix the prefix of properties to use; null to use none
+     * @param properties the properties
+     */
+    public EnvironmentOverlay(String environmentPrefix, Map<String, String> environment, String propertyPrefix, Properties properties) {
+        if (environmentPrefix != null) {
+            new TreeMap<>(environment).forEach((name, value) -> {
+                if (name.startsWith(environmentPrefix) && name.length() > environmentPrefix.length()) {
+                    put(name, name.substring(environmentPrefix.length()), value);
+                }
+            });
+        }
+        if (propertyPrefix != null) {
+            for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+                if (name.startsWith(propertyPrefix) && name.length() > propertyPrefix.length()) {
+                    put(name, name.substring(propertyPrefix.length()), properties.getProperty(name));
+                }
+            }
+        }
+    }
+
+    private void put(String name, String key, String value) {
+        names.put(key, name);
+        values.put(key, value);
+    }
+
+    /**
+     * Set the rule used to normalize both variable names (without their prefix) and config keys before matching them
+     * @param normalizer the naming rule
+     * @return this overlay
+     */
+    public synchronized EnvironmentOverlay normalizer(Function<String, String> normalizer) {
+        this.normalizer = normalizer;
+        this.resolvedStates = null;
+        return this;
+    }
+
+    /**
+     * @return the variables and properties that didn't override anything, mapped to why, as of the last snapshot built
+     */
+    public synchronized Map<String, String> getIgnored() {
+        return new LinkedHashMap<>(ignored);
+    }
+
+    /**
+     * Match the overlay against the keys of the given source states, reusing the last result while they're unchanged
+     * @return the overridden keys mapped to their converted values
+     */
+    synchronized Map<String, ConfigNode> resolve(List<Provider.State> states) {
+        if (resolvedStates != null && sameStates(resolvedStates, states)) return resolved;
+
+        // normalized key -> every key normalizing to it, each owned by the first source that has it
+        Map<String, Set<String>> keys = new HashMap<>();
+        Map<String, Provider.State> owners = new HashMap<>();
+        for (Provider.State state : states) {
+            for (Map<String, ConfigNode> index : Arrays.asList(state.valueIndex, state.defaultIndex)) {
+                for (String key : index.keySet()) {
+                    keys.computeIfAbsent(normalizer.apply(key), normalized -> new TreeSet<>()).add(key);
+                    owners.putIfAbsent(key, state);
+                }
+            }
+        }
+
+        Map<String, ConfigNode> resolved = new HashMap<>();
+        ignored.clear();
+        values.forEach((name, value) -> {
+            Set<String> matches = keys.get(normalizer.apply(name));
+            if (matches == null) {
+                ignored.put(names.get(name), "no matching key");
+                return;
+            }
+            if (matches.size() > 1) {
+                ignored.put(names.get(name), "ambiguous, matches keys " + String.join(", ", matches));
+                return;
+            }
+            String key = matches.iterator().next();
+            Provider.State owner = owners.get(key);
+            Object converted = owner.schema != null ? owner.schema.coerce(key, value) : value;
+            if (converted == null) {
+                ignored.put(names.get(name), "can't be converted to " + key + "'s type");
+                return;
+            }
+            resolved.put(key, ConfigNode.of(converted));
+        });
+        this.resolvedStates = new ArrayList<>(states);
+        this.resolved = Collections.unmodifiableMap(resolved);
+        return this.resolved;
+    }
+
+    private static boolean sameStates(List<Provider.State> a, List<Provider.State> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,263 @@
+package github.scarsz.configuralize;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map from strings to values, as a hash array mapped trie.
+ * <p>
+ * {@link #put(String, Object)} and {@link #remove(String)} return a new trie sharing everything but the path to
+ * the changed key with this one, so a change costs a handful of small array copies however many keys there are,
+ * and a trie can be handed to any number of readers without copying or locking.
+ */
+@SuppressWarnings("unchecked")
+final class HashTrie<V> {
+
+    private static final HashTrie<?> EMPTY = new HashTrie<>(BitmapNode.EMPTY, 0);
+
+    static <V> HashTrie<V> empty() {
+        return (HashTrie<V>) EMPTY;
+    }
+
+    private final Node root;
+    private final int size;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the value of the given key, or null if it isn't in the trie
+     */
+    V get(String key) {
+        return (V) root.get(key, hash(key), 0);
+    }
+
+    /**
+     * @return a trie with the given key mapped to the given value
+     */
+    HashTrie<V> put(String key, V value) {
+        boolean[] added = new boolean[1];
+        Node root = this.root.put(key, hash(key), 0, value, added);
+        return root == this.root ? this : new HashTrie<>(root, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return a trie without the given key
+     */
+    HashTrie<V> remove(String key) {
+        Node root = this.root.remove(key, hash(key), 0);
+        return root == this.root ? this : new HashTrie<>(root, size - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(BiConsumer<String, V> action) {
+        root.forEach((BiConsumer<String, Object>) action);
+    }
+
+    private static int hash(String key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private interface Node {
+        Object get(String key, int hash, int shift);
+        Node put(String key, int hash, int shift, Object value, boolean[] added);
+        Node remove(String key, int hash, int shift);
+        boolean isEmpty();
+        void forEach(BiConsumer<String, Object> action);
+    }
+
+    /**
+     * Up to 32 slots picked by 5 bits of the hash, only the occupied ones stored. Each slot is a key and its value,
+     * or null and a child node for keys sharing those bits.
+     */
+    private static final class BitmapNode implements Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object get(String key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+            int index = index(bit);
+            Object slotKey = array[index];
+            if (slotKey == null) return ((Node) array[index + 1]).get(key, hash, shift + 5);
+            return key.equals(slotKey) ? array[index + 1] : null;
+        }
+
+        @Override
+        public Node put(String key, int hash, int shift, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] array = new Object[this.array.length + 2];
+                System.arraycopy(this.array, 0, array, 0, index);
+                array[index] = key;
+                array[index + 1] = value;
+                System.arraycopy(this.array, index, array, index + 2, this.array.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, array);
+            }
+
+            Object slotKey = array[index];
+            Object slotValue = array[index + 1];
+            if (slotKey == null) {
+                Node child = ((Node) slotValue).put(key, hash, shift + 5, value, added);
+                return child == slotValue ? this : with(index, null, child);
+            }
+            if (key.equals(slotKey)) {
+                return slotValue == value ? this : with(index, key, value);
+            }
+            // two keys share the slot, push both down a level
+            added[0] = true;
+            return with(index, null, pair(shift + 5, (String) slotKey, slotValue, key, hash, value));
+        }
+
+        private static Node pair(int shift, String key1, Object value1, String key2, int hash2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            boolean[] added = new boolean[1];
+            return EMPTY.put(key1, hash1, shift, value1, added).put(key2, hash2, shift, value2, added);
+        }
+
+        @Override
+        public Node remove(String key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            int index = index(bit);
+            Object slotKey = array[index];
+            if (slotKey == null) {
+                Node child = (Node) array[index + 1];
+                Node removed = child.remove(key, hash, shift + 5);
+                if (removed == child) return this;
+                return removed.isEmpty() ? without(bit, index) : with(index, null, removed);
+            }
+            return key.equals(slotKey) ? without(bit, index) : this;
+        }
+
+        private BitmapNode with(int index, Object key, Object value) {
+            Object[] array = this.array.clone();
+            array[index] = key;
+            array[index + 1] = value;
+            return new BitmapNode(bitmap, array);
+        }
+        private BitmapNode without(int bit, int index) {
+            Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, index);
+            System.arraycopy(this.array, index + 2, array, index, array.length - index);
+            return new BitmapNode(bitmap & ~bit, array);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bitmap == 0;
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept((String) array[i], array[i + 1]);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Keys whose hashes are entirely equal, kept as a flat list of keys and values
+     */
+    private static final class CollisionNode implements Node {
+
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public Object get(String key, int hash, int shift) {
+            if (hash != this.hash) return null;
+            int index = indexOf(key);
+            return index == -1 ? null : array[index + 1];
+        }
+
+        @Override
+        public Node put(String key, int hash, int shift, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // a different hash reached this level, nest this node in a regular one and add the key beside it
+                Node nested = new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] {null, this});
+                return nested.put(key, hash, shift, value, added);
+            }
+            int index = indexOf(key);
+            if (index != -1) {
+                if (array[index + 1] == value) return this;
+                Object[] array = this.array.clone();
+                array[index + 1] = value;
+                return new CollisionNode(hash, array);
+            }
+            Object[] array = Arrays.copyOf(this.array, this.array.length + 2);
+            array[array.length - 2] = key;
+            array[array.length - 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, array);
+        }
+
+        @Override
+        public Node remove(String key, int hash, int shift) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index == -1) return this;
+            Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, index);
+            System.arraycopy(this.array, index + 2, array, index, array.length - index);
+            return new CollisionNode(hash, array);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return array.length == 0;
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Object> action) {
+            for (int i = 0; i < array.length; i += 2) action.accept((String) array[i], array[i + 1]);
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+package github.scarsz.configuralize;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Resolves {@code ${other.key}} references inside string values, including strings inside lists and sections.
+ * <p>
+ * References are followed depth-first, so every key is resolved after the keys it depends on, and each key is
+ * resolved only once per instance however many threads look it up. References to keys that don't exist or are
+ * null are kept as-is, {@code $${} is kept as a literal {@code ${}. Keys whose chain of references leads back to
+ * themselves are left unresolved and reported, so a cycle only affects the keys taking part in it. A reference to a
+ * list or section is replaced by its resolved value written out as text.
+ */
+class Interpolator {
+
+    static final Object MISSING = new Object();
+
+    /**
+     * @return whether the given value is a string containing a reference, or a list or section holding one
+     */
+    static boolean isInterpolated(Object value) {
+        if (value instanceof String) return ((String) value).contains("${");
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (isInterpolated(element)) return true;
+            }
+        } else if (value instanceof Map) {
+            for (Object child : ((Map<?, ?>) value).values()) {
+                if (isInterpolated(child)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the dotted keys of all values containing references in the given tree, sections holding them included
+     */
+    static void collect(String prefix, Map<?, ?> tree, Set<String> keys) {
+        if (tree == null) return;
+        for (Map.Entry<?, ?> entry : tree.entrySet()) {
+            String key = prefix + entry.getKey();
+            if (!isInterpolated(entry.getValue())) continue;
+            keys.add(key);
+            if (entry.getValue() instanceof Map) collect(key + ".", (Map<?, ?>) entry.getValue(), keys);
+        }
+    }
+
+    private final Function<String, Object> lookup;
+    private final Map<String, Object> resolved = new ConcurrentHashMap<>();
+    private final Set<String> circular = ConcurrentHashMap.newKeySet();
+    private final Set<String> errors = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    /**
+     * @param lookup the raw value of a key, or {@link #MISSING}
+     */
+    Interpolator(Function<String, Object> lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Resolve the given key, reusing every key resolved before by any thread
+     * @return the resolved value of the given key, lists and sections as resolved copies, or null if it doesn't
+     * exist, is null or is part of a cycle
+     */
+    Object resolve(String key) {
+        return resolve(key, new LinkedHashSet<>());
+    }
+
+    /**
+     * @return a description of every circular chain of references found so far
+     */
+    List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * @return the resolved value of the given key, or null if it can't be referenced
+     */
+    private Object resolve(String key, Set<String> resolving) {
+        if (circular.contains(key)) return null;
+        Object done = resolved.get(key);
+        if (done != null) return done;
+
+        Object raw = lookup.apply(key);
+        if (raw == MISSING || raw == null) return null;
+        if (!isInterpolated(raw)) return raw;
+
+        if (!resolving.add(key)) {
+            // the keys from the first occurrence of this one onwards form the cycle
+            List<String> cycle = new ArrayList<>();
+            for (String member : resolving) {
+                if (!cycle.isEmpty() || member.equals(key)) cycle.add(member);
+            }
+            // another thread may have found the same cycle starting from another key
+            boolean known = cycle.stream().anyMatch(circular::contains);
+            circular.addAll(cycle);
+            cycle.add(key);
+            if (!known) errors.add("Circular reference between config keys " + String.join(" -> ", cycle));
+            return null;
+        }
+        Object result = substitute(raw, resolving);
+        resolving.remove(key);
+        if (circular.contains(key)) return null; // keeps its raw value
+
+        resolved.put(key, result);
+        return result;
+    }
+
+    /**
+     * @return a copy of the given value with the references in it and in any strings it holds replaced
+     */
+    private Object substitute(Object value, Set<String> resolving) {
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                list.add(isInterpolated(element) ? substitute(element, resolving) : element);
+            }
+            return list;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object child = entry.getValue();
+                map.put(entry.getKey(), isInterpolated(child) ? substitute(child, resolving) : child);
+            }
+            return map;
+        }
+
+        String text = (String) value;
+        StringBuilder builder = new StringBuilder(text.length() + 16);
+        int position = 0;
+        int start;
+        while ((start = text.indexOf("${", position)) != -1) {
+            if (start > 0 && text.charAt(start - 1) == '$') {
+                builder.append(text, position, start - 1).append("${");
+                position = start + 2;
+                continue;
+            }
+            int end = text.indexOf('}', start + 2);
+            if (end == -1) break;
+
+            builder.append(text, position, start);
+            Object reference = resolve(text.substring(start + 2, end), resolving);
+            builder.append(reference != null ? reference.toString() : text.substring(start, end + 1));
+            position = end + 1;
+        }
+        builder.append(text, position, text.length());
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,122 @@
+package github.scarsz.configuralize;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of longs stored in a primitive open-addressed table, so membership checks neither box nor
+ * scan no matter how many values it holds. Built from config lists of IDs with {@link ConfigView#getLongSet(String)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class LongSet {
+
+    private static final long EMPTY = 0;
+
+    private final long[] table;
+    private final int mask;
+    private final boolean containsEmpty;
+    private final int size;
+
+    private LongSet(long[] table, boolean containsEmpty, int size) {
+        this.table = table;
+        this.mask = table.length - 1;
+        this.containsEmpty = containsEmpty;
+        this.size = size;
+    }
+
+    /**
+     * @param values the values to put in the set; numbers and numeric strings
+     * @return a set of the given values
+     * @throws NumberFormatException if a value isn't a whole number in the range of a long
+     */
+    public static LongSet of(Collection<?> values) {
+        long[] longs = new long[values.size()];
+        int i = 0;
+        for (Object value : values) {
+            longs[i++] = toLong(value);
+        }
+        return of(longs);
+    }
+    private static long toLong(Object value) throws NumberFormatException {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (!(value instanceof Number)) return Long.parseLong(String.valueOf(value).trim());
+        try {
+            return new BigDecimal(value.toString()).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Not a whole number in the range of a long: " + value);
+        }
+    }
+
+    /**
+     * @param values the values to put in the set
+     * @return a set of the given values
+     */
+    public static LongSet of(long... values) {
+        int capacity = Integer.highestOneBit(Math.max(values.length, 1) * 2 - 1) << 1;
+        long[] table = new long[Math.max(capacity, 2)];
+        int mask = table.length - 1;
+        boolean containsEmpty = false;
+        int size = 0;
+        for (long value : values) {
+            if (value == EMPTY) {
+                if (!containsEmpty) size++;
+                containsEmpty = true;
+                continue;
+            }
+            int slot = hash(value) & mask;
+            while (table[slot] != EMPTY && table[slot] != value) slot = (slot + 1) & mask;
+            if (table[slot] == EMPTY) {
+                table[slot] = value;
+                size++;
+            }
+        }
+        return new LongSet(table, containsEmpty, size);
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsEmpty;
+        int slot = hash(value) & mask;
+        long candidate;
+        while ((candidate = table[slot]) != EMPTY) {
+            if (candidate == value) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the values of this set in ascending order
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsEmpty) values[i++] = EMPTY;
+        for (long value : table) {
+            if (value != EMPTY) values[i++] = value;
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+}
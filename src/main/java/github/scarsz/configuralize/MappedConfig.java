@@ -0,0 +1,402 @@
+package github.scarsz.configuralize;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A read-only config served straight from a memory-mapped file written by {@link #export(ConfigSnapshot, File)}.
+ * <p>
+ * Keys are found through a minimal perfect hash (hash and displace) stored in the file itself, so opening a file
+ * does no parsing and lookups read nothing but the mapped pages: processes mapping the same file share it through
+ * the OS page cache, and the config adds no heap or GC pressure beyond the values handed out by getters.
+ * <p>
+ * File layout (big-endian): magic, version, key count {@code n}, {@code n} displacements, {@code n} entry offsets,
+ * then entries of key length, key chars and tagged value. Every key the snapshot can look up is stored, sections
+ * included; null values are only kept inside the sections holding them, as the snapshot does. Each value is stored
+ * only once: a section holds its children's names and the offsets of their values, which are
+ * written with the children's own entries.
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public class MappedConfig extends ConfigView {
+
+    private static final int MAGIC = 0x43464731; // CFG1
+    private static final int VERSION = 2;
+    private static final int HEADER = 12;
+    private static final int MAX_DISPLACEMENT = 1 << 24;
+
+    private static final byte NULL = 0, FALSE = 1, TRUE = 2, INT = 3, LONG = 4, DOUBLE = 5, STRING = 6, LIST = 7, MAP = 8, DECIMAL = 9, REFERENCE = 10;
+
+    /**
+     * Write the given snapshot to a file that can be opened with {@link #open(File)}
+     * @param snapshot the snapshot to export
+     * @param file the file to write to
+     * @throws IOException if writing fails
+     */
+    public static void export(ConfigSnapshot snapshot, File file) throws IOException {
+        Set<String> all = snapshot.getKeys();
+        List<String> keys = new ArrayList<>(all.size());
+        Map<String, ConfigNode> nodes = new HashMap<>(all.size() * 2);
+        for (String key : all) {
+            try {
+                nodes.put(key, snapshot.node(key));
+                keys.add(key);
+            } catch (IllegalArgumentException e) {
+                // null everywhere, the snapshot can't look it up either
+            }
+        }
+        int count = keys.size();
+        int[] displacements = new int[count];
+        int[] slots = buildHash(keys, displacements);
+
+        // entries of children before their sections, so sections can refer to the values already written
+        String[] bySlot = new String[count];
+        for (int i = 0; i < count; i++) bySlot[slots[i]] = keys.get(i);
+        List<Integer> order = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) order.add(slot);
+        order.sort((a, b) -> bySlot[b].length() - bySlot[a].length());
+
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(entries);
+        int[] offsets = new int[count];
+        int base = HEADER + count * 8;
+        Map<String, Integer> valueOffsets = new HashMap<>(count * 2);
+        for (int slot : order) {
+            offsets[slot] = base + out.size();
+            String key = bySlot[slot];
+            out.writeInt(key.length());
+            out.writeChars(key);
+            valueOffsets.put(key, base + out.size());
+            Object value = nodes.get(key).asObject();
+            if (value instanceof Map) {
+                writeSection(out, nodes, key, (Map<?, ?>) value, valueOffsets);
+            } else {
+                writeValue(out, value);
+            }
+        }
+        out.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(base);
+        header.putInt(MAGIC).putInt(VERSION).putInt(count);
+        for (int displacement : displacements) header.putInt(displacement);
+        for (int offset : offsets) header.putInt(offset);
+
+        byte[] bytes = new byte[base + entries.size()];
+        System.arraycopy(header.array(), 0, bytes, 0, base);
+        System.arraycopy(entries.toByteArray(), 0, bytes, base, entries.size());
+        Provider.writeAtomically(file.toPath(), bytes);
+    }
+
+    /**
+     * Build a minimal perfect hash over the given keys
+     * @param keys the keys to hash
+     * @param displacements filled with the displacement of each first-level bucket
+     * @return the slot of each key
+     */
+    private static int[] buildHash(List<String> keys, int[] displacements) {
+        int count = keys.size();
+        int[] slots = new int[count];
+        if (count == 0) return slots;
+
+        List<List<Integer>> buckets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) buckets.add(new ArrayList<>(2));
+        for (int i = 0; i < count; i++) buckets.get(index(0, keys.get(i), count)).add(i);
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        boolean[] taken = new boolean[count];
+        int next = 0;
+        for (int bucket : order) {
+            List<Integer> members = buckets.get(bucket);
+            if (members.isEmpty()) break;
+            if (members.size() == 1) {
+                // singletons go straight into a free slot, stored as a negative displacement
+                while (taken[next]) next++;
+                taken[next] = true;
+                slots[members.get(0)] = next;
+                displacements[bucket] = -next - 1;
+                continue;
+            }
+
+            int[] candidate = new int[members.size()];
+            for (int displacement = 1; ; displacement++) {
+                if (displacement == MAX_DISPLACEMENT) throw new IllegalStateException("Failed to build key hash for exported config");
+                boolean fits = true;
+                for (int i = 0; i < candidate.length && fits; i++) {
+                    int slot = index(displacement, keys.get(members.get(i)), count);
+                    if (taken[slot]) fits = false;
+                    for (int j = 0; j < i && fits; j++) if (candidate[j] == slot) fits = false;
+                    candidate[i] = slot;
+                }
+                if (!fits) continue;
+                for (int i = 0; i < candidate.length; i++) {
+                    taken[candidate[i]] = true;
+                    slots[members.get(i)] = candidate[i];
+                }
+                displacements[bucket] = displacement;
+                break;
+            }
+        }
+        return slots;
+    }
+
+    private static int index(int seed, String key, int count) {
+        int hash = 0x811c9dc5 ^ (seed * 0x9e3779b9);
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 15;
+        return (hash & 0x7fffffff) % count;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            out.writeByte(DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object element : list) writeValue(out, element);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+    /**
+     * Write a section, referring to the values of children that were exported as keys of their own
+     */
+    private static void writeSection(DataOutputStream out, Map<String, ConfigNode> nodes, String key, Map<?, ?> section,
+                                     Map<String, Integer> valueOffsets) throws IOException {
+        out.writeByte(MAP);
+        out.writeInt(section.size());
+        for (Map.Entry<?, ?> entry : section.entrySet()) {
+            String child = key + "." + entry.getKey();
+            writeString(out, String.valueOf(entry.getKey()));
+            Integer offset = valueOffsets.get(child);
+            // only refer to the child's entry if it holds this very value, not a runtime or resolved replacement
+            if (offset != null && nodes.get(child).holds(entry.getValue())) {
+                out.writeByte(REFERENCE);
+                out.writeInt(offset);
+            } else {
+                writeValue(out, entry.getValue());
+            }
+        }
+    }
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Map the given exported config file
+     * @param file the file written by {@link #export(ConfigSnapshot, File)}
+     * @return the mapped config
+     * @throws IOException if the file can't be mapped or isn't an exported config
+     */
+    public static MappedConfig open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) throw new IOException(file.getName() + " is not an exported config");
+            if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported exported config version " + buffer.getInt(4));
+            return new MappedConfig(buffer);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int count;
+
+    private MappedConfig(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+    }
+
+    /**
+     * @return the offset of the given key's value, or -1 if the key doesn't exist
+     */
+    private int find(String key) {
+        if (count == 0) return -1;
+        int displacement = buffer.getInt(HEADER + index(0, key, count) * 4);
+        int slot = displacement < 0 ? -displacement - 1 : index(displacement, key, count);
+        int offset = buffer.getInt(HEADER + count * 4 + slot * 4);
+
+        int length = buffer.getInt(offset);
+        if (length != key.length()) return -1;
+        int chars = offset + 4;
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(chars + i * 2) != key.charAt(i)) return -1;
+        }
+        return chars + length * 2;
+    }
+    private int require(String key) throws IllegalArgumentException {
+        int offset = find(key);
+        if (offset == -1) throw new IllegalArgumentException("Invalid key: " + key);
+        return offset;
+    }
+
+    /**
+     * @return the number of keys in this config
+     */
+    public int size() {
+        return count;
+    }
+
+    public boolean containsKey(String key) {
+        return find(key) != -1;
+    }
+
+    @Override
+    public ConfigNode node(String key) throws IllegalArgumentException {
+        return ConfigNode.of(readValue(new int[] {require(key)}));
+    }
+
+    @Override
+    public String getString(String key) throws RuntimeException {
+        int offset = require(key);
+        if (buffer.get(offset) == STRING) return readString(offset + 1);
+        return super.getString(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws ArithmeticException if the value is a number that isn't integral or doesn't fit an int
+     */
+    @Override
+    public int getInt(String key) throws RuntimeException {
+        int offset = require(key);
+        switch (buffer.get(offset)) {
+            case INT: return buffer.getInt(offset + 1);
+            case LONG: return Math.toIntExact(buffer.getLong(offset + 1));
+            case DOUBLE:
+                double value = buffer.getDouble(offset + 1);
+                if ((int) value != value) throw new ArithmeticException(key + " isn't an int: " + value);
+                return (int) value;
+            default: return super.getInt(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws ArithmeticException if the value is a number that isn't integral or doesn't fit a long
+     */
+    @Override
+    public long getLong(String key) throws RuntimeException {
+        int offset = require(key);
+        switch (buffer.get(offset)) {
+            case INT: return buffer.getInt(offset + 1);
+            case LONG: return buffer.getLong(offset + 1);
+            case DOUBLE:
+                double value = buffer.getDouble(offset + 1);
+                if ((long) value != value || value >= 0x1p63) throw new ArithmeticException(key + " isn't a long: " + value);
+                return (long) value;
+            default: return super.getLong(key);
+        }
+    }
+
+    @Override
+    public double getDouble(String key) throws RuntimeException {
+        int offset = require(key);
+        switch (buffer.get(offset)) {
+            case INT: return buffer.getInt(offset + 1);
+            case LONG: return buffer.getLong(offset + 1);
+            case DOUBLE: return buffer.getDouble(offset + 1);
+            default: return super.getDouble(key);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String key) throws RuntimeException {
+        int offset = require(key);
+        switch (buffer.get(offset)) {
+            case TRUE: return true;
+            case FALSE: return false;
+            default: return super.getBoolean(key);
+        }
+    }
+
+    /**
+     * Decode the value at the given offset
+     * @param position a single element array holding the offset, advanced past the value
+     */
+    private Object readValue(int[] position) {
+        int offset = position[0];
+        byte tag = buffer.get(offset++);
+        Object value;
+        switch (tag) {
+            case NULL: value = null; break;
+            case FALSE: value = false; break;
+            case TRUE: value = true; break;
+            case INT: value = buffer.getInt(offset); offset += 4; break;
+            case LONG: value = buffer.getLong(offset); offset += 8; break;
+            case DOUBLE: value = buffer.getDouble(offset); offset += 8; break;
+            case REFERENCE: value = readValue(new int[] {buffer.getInt(offset)}); offset += 4; break;
+            case STRING:
+            case DECIMAL:
+                String string = readString(offset);
+                offset += 4 + buffer.getInt(offset);
+                value = tag == DECIMAL ? new BigDecimal(string) : string;
+                break;
+            case LIST:
+                int size = buffer.getInt(offset);
+                List<Object> list = new ArrayList<>(size);
+                position[0] = offset + 4;
+                for (int i = 0; i < size; i++) list.add(readValue(position));
+                return list;
+            case MAP:
+                int entries = buffer.getInt(offset);
+                Map<String, Object> map = new LinkedHashMap<>(entries * 2);
+                position[0] = offset + 4;
+                for (int i = 0; i < entries; i++) {
+                    String key = readString(position[0]);
+                    position[0] += 4 + buffer.getInt(position[0]);
+                    map.put(key, readValue(position));
+                }
+                return map;
+            default:
+                throw new IllegalStateException("Corrupt exported config, unknown value tag " + tag);
+        }
+        position[0] = offset;
+        return value;
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getInt(offset);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = buffer.get(offset + 4 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
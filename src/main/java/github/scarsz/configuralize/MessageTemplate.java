@@ -0,0 +1,197 @@
+package github.scarsz.configuralize;
+
+import java.util.*;
+
+/**
+ * A message parsed once into literal text and {@code {placeholder}} segments.
+ * <p>
+ * Placeholder names may contain letters, digits, {@code _}, {@code -} and {@code .}; braces around anything else are
+ * kept as literal text. Each distinct placeholder name gets a slot, numbered in order of first appearance, so values
+ * can be bound positionally with {@link #render(Object...)} without looking names up. Placeholders without a value
+ * are rendered as-is. Templates are immutable and thread-safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private static final int MAX_REUSED_CAPACITY = 8192;
+
+    private final String template;
+    private final String[] literals;
+    private final int[] slots;
+    private final String[] names;
+    private final int literalLength;
+
+    private MessageTemplate(String template, String[] literals, int[] slots, String[] names) {
+        this.template = template;
+        this.literals = literals;
+        this.slots = slots;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse the given message into a template
+     * @param template the message to parse
+     * @return the parsed template
+     */
+    public static MessageTemplate parse(String template) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int literalStart = 0;
+        int open = template.indexOf('{');
+        while (open != -1) {
+            int close = open + 1;
+            while (close < template.length() && isNameChar(template.charAt(close))) close++;
+            if (close == open + 1 || close == template.length() || template.charAt(close) != '}') {
+                open = template.indexOf('{', open + 1);
+                continue;
+            }
+
+            String name = template.substring(open + 1, close);
+            int slot = names.indexOf(name);
+            if (slot == -1) {
+                slot = names.size();
+                names.add(name);
+            }
+            literals.add(template.substring(literalStart, open));
+            slots.add(slot);
+            literalStart = close + 1;
+            open = template.indexOf('{', literalStart);
+        }
+        literals.add(template.substring(literalStart));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+        return new MessageTemplate(template, literals.toArray(new String[0]), slotArray, names.toArray(new String[0]));
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || c == '.';
+    }
+
+    /**
+     * @return the distinct placeholder names, in slot order
+     */
+    public List<String> getPlaceholders() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * @param name the placeholder name
+     * @return the slot of the given placeholder, or -1 if the template doesn't contain it
+     */
+    public int slot(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Render the template with the given values bound by slot
+     * @param values the value for each slot, see {@link #getPlaceholders()}
+     * @return the rendered message
+     */
+    public String render(Object... values) {
+        if (slots.length == 0) return template;
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        String rendered = renderTo(builder, values).toString();
+        if (builder.capacity() > MAX_REUSED_CAPACITY) BUILDER.remove();
+        return rendered;
+    }
+
+    /**
+     * Render the template with the given values bound by placeholder name
+     * @param values the values by placeholder name
+     * @return the rendered message
+     */
+    public String render(Map<String, ?> values) {
+        if (slots.length == 0) return template;
+        Object[] bound = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            bound[i] = values.containsKey(names[i]) ? values.get(names[i]) : Unbound.INSTANCE;
+        }
+        return render(bound);
+    }
+
+    /**
+     * Append the rendered template to the given builder
+     * @param builder the builder to append to
+     * @param values the value for each slot, see {@link #getPlaceholders()}
+     * @return the given builder
+     */
+    public StringBuilder renderTo(StringBuilder builder, Object... values) {
+        builder.ensureCapacity(builder.length() + literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            int slot = slots[i];
+            Object value = slot < values.length ? values[slot] : Unbound.INSTANCE;
+            if (value == Unbound.INSTANCE) {
+                builder.append('{').append(names[slot]).append('}');
+            } else {
+                builder.append(value);
+            }
+        }
+        return builder.append(literals[literals.length - 1]);
+    }
+
+    /**
+     * @return a new reusable binder for this template
+     */
+    public Binder bind() {
+        return new Binder();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /**
+     * Reusable set of values for a {@link MessageTemplate}. Not thread-safe.
+     */
+    public final class Binder {
+
+        private final Object[] values = new Object[names.length];
+
+        private Binder() {
+            clear();
+        }
+
+        public Binder set(String name, Object value) {
+            int slot = slot(name);
+            if (slot != -1) values[slot] = value;
+            return this;
+        }
+
+        public Binder set(int slot, Object value) {
+            values[slot] = value;
+            return this;
+        }
+
+        public String render() {
+            return MessageTemplate.this.render(values);
+        }
+
+        public StringBuilder renderTo(StringBuilder builder) {
+            return MessageTemplate.this.renderTo(builder, values);
+        }
+
+        public Binder clear() {
+            Arrays.fill(values, Unbound.INSTANCE);
+            return this;
+        }
+
+    }
+
+    private enum Unbound {
+        INSTANCE
+    }
+
+}
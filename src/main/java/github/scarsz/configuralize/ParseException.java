@@ -1,9 +1,19 @@
 package github.scarsz.configuralize;
 
+import java.io.File;
+
 public class ParseException extends Exception {
 
     public ParseException(Source source, Throwable cause) {
-        super("Error parsing config file " + source.getFile().getName() + ": " + cause.getMessage(), cause);
+        this(source.getFile(), cause);
+    }
+
+    public ParseException(File file, Throwable cause) {
+        super("Error parsing config file " + file.getName() + ": " + cause.getMessage(), cause);
+    }
+
+    protected ParseException(String message) {
+        super(message);
     }
 
 }
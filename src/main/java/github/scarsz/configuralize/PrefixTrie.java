@@ -0,0 +1,133 @@
+package github.scarsz.configuralize;
+
+import java.util.*;
+
+/**
+ * An immutable trie of strings, answering prefix questions in time proportional to the length of the text
+ * checked rather than the number of entries. Built from config lists with {@link ConfigView#getPrefixTrie(String)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PrefixTrie {
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Node root;
+    private final int size;
+
+    private PrefixTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param entries the entries to put in the trie
+     * @return a trie of the given entries
+     */
+    public static PrefixTrie of(Collection<?> entries) {
+        Builder root = new Builder();
+        int size = 0;
+        for (Object entry : entries) {
+            if (entry == null) continue;
+            String string = entry.toString();
+            Builder node = root;
+            for (int i = 0; i < string.length(); i++) {
+                node = node.children.computeIfAbsent(string.charAt(i), c -> new Builder());
+            }
+            if (!node.terminal) size++;
+            node.terminal = true;
+        }
+        return new PrefixTrie(root.build(), size);
+    }
+
+    /**
+     * @return whether the given text is one of the entries
+     */
+    public boolean contains(CharSequence text) {
+        Node node = root;
+        for (int i = 0; i < text.length() && node != null; i++) node = node.child(text.charAt(i));
+        return node != null && node.terminal;
+    }
+
+    /**
+     * @return whether the given text starts with any of the entries
+     */
+    public boolean matchesPrefixOf(CharSequence text) {
+        return longestPrefixLength(text) != -1;
+    }
+
+    /**
+     * @return the longest entry the given text starts with, or null if it doesn't start with any
+     */
+    public String longestPrefixOf(CharSequence text) {
+        int length = longestPrefixLength(text);
+        return length != -1 ? text.subSequence(0, length).toString() : null;
+    }
+
+    private int longestPrefixLength(CharSequence text) {
+        Node node = root;
+        int longest = node.terminal ? 0 : -1;
+        for (int i = 0; i < text.length(); i++) {
+            node = node.child(text.charAt(i));
+            if (node == null) break;
+            if (node.terminal) longest = i + 1;
+        }
+        return longest;
+    }
+
+    /**
+     * @return whether any entry starts with the given prefix
+     */
+    public boolean hasEntryStartingWith(CharSequence prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) node = node.child(prefix.charAt(i));
+        return node != null && (node.terminal || node.chars.length > 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static final class Node {
+
+        final char[] chars;
+        final Node[] children;
+        final boolean terminal;
+
+        Node(char[] chars, Node[] children, boolean terminal) {
+            this.chars = chars;
+            this.children = children;
+            this.terminal = terminal;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+    }
+
+    private static final class Builder {
+
+        final TreeMap<Character, Builder> children = new TreeMap<>();
+        boolean terminal;
+
+        Node build() {
+            if (children.isEmpty()) return new Node(NO_CHARS, NO_NODES, terminal);
+            char[] chars = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                chars[i] = child.getKey();
+                nodes[i++] = child.getValue().build();
+            }
+            return new Node(chars, nodes, terminal);
+        }
+
+    }
+
+}
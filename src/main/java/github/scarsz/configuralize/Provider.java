@@ -1,82 +1,429 @@
 package github.scarsz.configuralize;
 
 import alexh.weak.Dynamic;
-import org.yaml.snakeyaml.parser.ParserException;
+import github.scarsz.configuralize.backend.ConfigBackend;
+import github.scarsz.configuralize.backend.Fetch;
+import github.scarsz.configuralize.codec.CodecException;
+import github.scarsz.configuralize.codec.FormatCodec;
+import github.scarsz.configuralize.jfr.ConfigEvents;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.Map;
-import java.util.Objects;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 @SuppressWarnings({"SameParameterValue", "WeakerAccess"})
 public class Provider {
 
-    private static Dynamic load(DynamicConfig config, Source source, String raw) throws ParseException {
-        if (raw == null) throw new IllegalArgumentException("Can't load null config");
+    private static Dynamic load(DynamicConfig config, Source source, InputStream stream, String origin) throws IOException, ParseException {
+        if (stream == null) throw new IllegalArgumentException("Can't load null config");
 
-        Map<?, ?> parsed;
         String extension = source.getFile().getName().substring(source.getFile().getName().lastIndexOf(".") + 1);
+        FormatCodec codec = config.getCodec(source.getFile());
+        ConfigEvents.Load event = ConfigEvents.get().beginLoad(source.getResourceName(), origin, extension.toLowerCase());
+        CountingInputStream counting = event.isEnabled() ? new CountingInputStream(stream) : null;
         try {
-            if (extension.equalsIgnoreCase("yml")) {
-                parsed = config.getYamlParser().loadAs(raw, Map.class);
-            } else if (extension.equalsIgnoreCase("json")) {
-                parsed = (Map<?, ?>) config.getJsonParser().parse(raw);
-            } else {
-                throw new IllegalArgumentException("Config source extension " + extension + " is not supported");
-            }
-        } catch (org.json.simple.parser.ParseException | ParserException e) {
+            Map<String, Object> parsed = codec.parse(counting != null ? counting : stream);
+            if (counting != null) event.parsed(counting.count, countKeys(parsed));
+            return Dynamic.from(parsed);
+        } catch (CodecException e) {
+            event.failed(e);
             throw new ParseException(source, e);
+        } catch (IOException | RuntimeException | Error e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static int countKeys(Map<?, ?> tree) {
+        if (tree == null) return 0;
+        int keys = 0;
+        for (Object value : tree.values()) {
+            keys += value instanceof Map ? countKeys((Map<?, ?>) value) : 1;
         }
-        return Dynamic.from(parsed);
+        return keys;
+    }
+
+    /**
+     * @return the config tree the given dynamic wraps, or null if it's empty
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> tree(Dynamic dynamic) {
+        return dynamic != null && dynamic.isPresent() ? (Map<String, Object>) dynamic.asObject() : null;
     }
 
     private final DynamicConfig config;
     private final Source source;
-    private Dynamic defaults;
-    private Dynamic values;
+    private volatile State state = State.EMPTY;
+    private volatile Fetch lastFetch = null;
+    private volatile Exception lastRefreshFailure = null;
 
     public Provider(DynamicConfig config, Source source) {
         this.config = config;
         this.source = source;
     }
 
+    /**
+     * Load the source's defaults and values, validating the values against the {@link Schema} compiled from the defaults
+     */
     public void load() throws IOException, ParseException {
-        this.defaults = loadResource();
-        this.values = loadValues();
+        State state = read();
+        checkStrict(state);
+        synchronized (config.getLock()) {
+            apply(state);
+            config.invalidate();
+        }
+        cacheFetch(state);
     }
+
+    /**
+     * Read and validate the source without making the result visible yet
+     */
+    State read() throws IOException, ParseException {
+        Dynamic defaults = loadResource();
+        Dynamic values = null;
+        Fetch fetch = null;
+        if (source.getBackend() != null) {
+            try {
+                fetch = fetch();
+            } catch (IOException e) {
+                // backend unreachable, fall back to the last good content cached in the file
+                if (!source.getFile().exists()) throw e;
+            }
+            if (fetch != null) {
+                values = parse(fetch);
+            } else if (state.values != null) {
+                values = state.values;
+            }
+        }
+        if (values == null) values = loadValues();
+        return validate(config.getLanguage(), defaults, values, new Schema(tree(defaults)), fetch);
+    }
+    private State validate(Language language, Dynamic defaults, Dynamic values, Schema schema, Fetch fetch) {
+        List<String> errors = schema.validate(tree(values)).stream()
+                .map(error -> source.getFile().getName() + ": " + error)
+                .collect(Collectors.toList());
+        return new State(this, language, defaults, values, schema, errors, fetch);
+    }
+    /**
+     * Reject the given state before it's applied if strict validation is enabled and its values are invalid
+     */
+    private void checkStrict(State state) throws ValidationException {
+        if (config.isStrictValidation() && !state.validationErrors.isEmpty()) {
+            throw new ValidationException(state.validationErrors);
+        }
+    }
+    void apply(State state) {
+        this.state = state;
+    }
+
+    /**
+     * Fetch the source's values from its {@link ConfigBackend}, keeping the current values if the content didn't
+     * change or can't be fetched or parsed
+     * @return true if new values were fetched and applied
+     * @throws IOException if fetching fails
+     * @throws ParseException if the fetched content can't be parsed
+     */
+    public boolean refresh() throws IOException, ParseException {
+        if (source.getBackend() == null) return false;
+        State current = state;
+        if (current.defaults == null) {
+            load();
+            return true;
+        }
+        Fetch fetch = fetch();
+        if (fetch == null) return false;
+
+        State refreshed = validate(current.language, current.defaults, parse(fetch), current.schema, fetch);
+        checkStrict(refreshed);
+        synchronized (config.getLock()) {
+            apply(refreshed);
+            config.invalidate();
+        }
+        cacheFetch(refreshed);
+        return true;
+    }
+
+    /**
+     * Conditionally fetch the backend's content, relative to the last fetch whose values were applied
+     * @return the fetch, or null if the content hasn't changed since the last applied fetch
+     */
+    private Fetch fetch() throws IOException {
+        Fetch fetch = source.getBackend().fetch(lastFetch);
+        return fetch.isModified() ? fetch : null;
+    }
+    private Dynamic parse(Fetch fetch) throws IOException, ParseException {
+        return load(config, source, new ByteArrayInputStream(fetch.getContent()), "backend");
+    }
+
+    /**
+     * Cache the content the given state was fetched from in the source's file and fetch relative to it from now on.
+     * Only done once the state has been applied, so rejected content neither replaces the last good cache nor stops
+     * the next poll from fetching it again.
+     * @throws IOException if writing the cache fails, the state's values stay applied
+     */
+    synchronized void cacheFetch(State state) throws IOException {
+        if (state.fetch == null || this.state != state) return;
+        if (!source.getFile().getParentFile().exists() && !source.getFile().getParentFile().mkdirs()) {
+            throw new IOException("Failed to create directory " + source.getFile().getParentFile().getAbsolutePath());
+        }
+        writeAtomically(source.getFile().toPath(), state.fetch.getContent());
+        lastFetch = state.fetch;
+    }
+
     public Dynamic loadValues() throws ParseException, IOException {
-        return load(config, source, new String(Files.readAllBytes(source.getFile().toPath())));
+        try (InputStream stream = Files.newInputStream(source.getFile().toPath())) {
+            return load(config, source, stream, "file");
+        }
     }
     public Dynamic loadResource() throws ParseException, IOException {
-        try (InputStream stream = source.getResource().openStream()) {
-            Objects.requireNonNull(stream, "Unknown resource " + source.getResourcePath(config.getLanguage()));
-            try (InputStreamReader reader = new InputStreamReader(stream)) {
-                try (BufferedReader buffer = new BufferedReader(reader)) {
-                    return load(config, source, buffer.lines().collect(Collectors.joining("\n")));
-                }
+        return loadResource(config.getLanguage());
+    }
+    public Dynamic loadResource(Language language) throws ParseException, IOException {
+        URL resource = Objects.requireNonNull(source.getResource(language), "Unknown resource " + source.getResourcePath(language));
+        try (InputStream stream = resource.openStream()) {
+            return load(config, source, stream, "resource");
+        }
+    }
+
+    /**
+     * Load the bundled defaults of another language. Keys, and values equal to the primary language's, reuse the
+     * primary defaults' instances so side by side bundles don't duplicate them.
+     * @return the bundled defaults, empty if the source isn't translated to the language
+     */
+    private Dynamic loadBundle(State state, Language language) {
+        if (source.getResource(language) == null) return Dynamic.from(null);
+        try {
+            Map<String, Object> bundle = tree(loadResource(language));
+            return Dynamic.from(bundle != null ? share(bundle, tree(state.defaults)) : null);
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Failed to load " + language.getName() + " defaults of " + source.getResourceName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> share(Map<String, Object> tree, Map<String, Object> primary) {
+        if (primary == null) return tree;
+        Map<String, String> keys = new HashMap<>(primary.size() * 2);
+        for (String key : primary.keySet()) keys.put(key, key);
+
+        Map<String, Object> shared = new LinkedHashMap<>(tree.size() * 2);
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            String key = keys.getOrDefault(entry.getKey(), entry.getKey());
+            Object value = entry.getValue();
+            Object primaryValue = primary.get(key);
+            if (value instanceof Map && primaryValue instanceof Map) {
+                value = share((Map<String, Object>) value, (Map<String, Object>) primaryValue);
+            } else if (value != null && value.equals(primaryValue)) {
+                value = primaryValue;
             }
+            shared.put(key, value);
         }
+        return shared;
     }
 
     public void saveDefaults() throws IOException {
         saveDefaults(false);
     }
+    /**
+     * Saves the bundled resource to the source's file, see {@link #saveDefaultsIfChanged(boolean)}
+     * @param overwrite whether or not to replace the file if it already exists
+     * @throws IOException if saving to the file fails
+     */
     public void saveDefaults(boolean overwrite) throws IOException {
-        if (source.getFile().exists() && !overwrite) return;
+        saveDefaultsIfChanged(overwrite);
+    }
+    /**
+     * Saves the bundled resource to the source's file. Files whose contents already match the resource
+     * (same size and CRC32) are left untouched; otherwise the resource is written to a temporary file
+     * next to the target and atomically moved into place, so a crash can never leave a torn file behind.
+     * @param overwrite whether or not to replace the file if it already exists
+     * @return true if the file was written, false if saving was skipped
+     * @throws IOException if saving to the file fails
+     */
+    public boolean saveDefaultsIfChanged(boolean overwrite) throws IOException {
+        ConfigEvents.Save event = ConfigEvents.get().beginSave(source.getResourceName());
+        try {
+            boolean written = writeDefaults(overwrite);
+            event.saved(written);
+            return written;
+        } catch (IOException | RuntimeException | Error e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+    private boolean writeDefaults(boolean overwrite) throws IOException {
+        Path target = source.getFile().toPath();
+        boolean exists = Files.exists(target);
+        if (exists && !overwrite) return false;
         if (!source.getFile().getParentFile().exists() && !source.getFile().getParentFile().mkdirs()) {
             throw new IOException("Failed to create directory " + source.getFile().getParentFile().getAbsolutePath());
         }
 
-        String resource = source.getResourcePath(config.getLanguage());
-        try (InputStream stream = source.getResource().openStream()) {
-            Objects.requireNonNull(stream, "Unknown resource " + source.getResourcePath(config.getLanguage()));
-            Files.copy(stream, source.getFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        URL resource = Objects.requireNonNull(source.getResource(), "Unknown resource " + source.getResourcePath(config.getLanguage()));
+        Path resourcePath = toPath(resource);
+        if (resourcePath != null) {
+            // resource is a plain file (exploded classpath), transfer channel-to-channel without buffering it on the heap
+            try (FileChannel in = FileChannel.open(resourcePath, StandardOpenOption.READ)) {
+                long size = in.size();
+                if (exists && Files.size(target) == size && checksum(in) == checksum(target)) return false;
+                writeAtomically(target, out -> {
+                    long position = 0;
+                    while (position < size) position += in.transferTo(position, size - position, out);
+                });
+            }
+        } else {
+            byte[] bytes;
+            try (InputStream stream = resource.openStream()) {
+                bytes = readFully(stream);
+            }
+            if (exists && Files.size(target) == bytes.length && checksum(bytes) == checksum(target)) return false;
+            writeAtomically(target, bytes);
         }
+        return true;
+    }
+
+    /**
+     * Writes the given bytes to the target path through a temporary file and an atomic move
+     */
+    static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        writeAtomically(target, out -> {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) out.write(buffer);
+        });
+    }
+    private static void writeAtomically(Path target, ChannelWriter writer) throws IOException {
+        Path temp = createTemp(target);
+        try {
+            if (Files.exists(target) && target.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                // the move replaces the file, keep its permissions
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+            }
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(out);
+                out.force(false);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Create an empty temporary file next to the target with the default permissions for new files, where
+     * {@link Files#createTempFile} would make it readable by its owner only
+     */
+    private static Path createTemp(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        while (true) {
+            Path temp = directory.resolve("." + target.getFileName() + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException ignored) {
+                // try another name
+            }
+        }
+    }
+
+    private static long checksum(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return checksum(channel);
+        }
+    }
+    private static long checksum(FileChannel channel) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+        long position = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            position += read;
+            buffer.flip();
+            crc.update(buffer);
+            buffer.clear();
+        }
+        return crc.getValue();
+    }
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    private static Path toPath(URL url) {
+        if (!"file".equalsIgnoreCase(url.getProtocol())) return null;
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private interface ChannelWriter {
+        void write(FileChannel out) throws IOException;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) count++;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
     }
 
     public DynamicConfig getConfig() {
@@ -86,10 +433,101 @@ public class Provider {
         return source;
     }
     public Dynamic getDefaults() {
-        return defaults;
+        return state.defaults;
     }
     public Dynamic getValues() {
-        return values;
+        return state.values;
+    }
+    public Schema getSchema() {
+        return state.schema;
+    }
+    public List<String> getValidationErrors() {
+        return state.validationErrors;
+    }
+    State getState() {
+        return state;
+    }
+
+    /**
+     * @return why the last poll of this source's backend failed, or null if it succeeded
+     */
+    public Exception getLastRefreshFailure() {
+        return lastRefreshFailure;
+    }
+    void setLastRefreshFailure(Exception lastRefreshFailure) {
+        this.lastRefreshFailure = lastRefreshFailure;
+    }
+
+    /**
+     * Everything read by a single load of the source, swapped in as a whole so readers never see a partial load
+     */
+    static final class State {
+
+        static final State EMPTY = new State(null, null, null, null, null, Collections.emptyList(), null);
+
+        final Provider provider;
+        final Language language;
+        final Dynamic defaults;
+        final Dynamic values;
+        final Schema schema;
+        final List<String> validationErrors;
+        final Set<String> interpolatedKeys;
+        final Map<String, ConfigNode> valueIndex;
+        final Map<String, ConfigNode> defaultIndex;
+        /**
+         * The backend fetch the values were parsed from, cached once they're applied; null if they weren't fetched
+         */
+        final Fetch fetch;
+
+        private final Map<Language, Dynamic> bundles = new ConcurrentHashMap<>();
+        private final Map<Language, Map<String, ConfigNode>> bundleIndexes = new ConcurrentHashMap<>();
+        private final Map<Language, Set<String>> bundleInterpolatedKeys = new ConcurrentHashMap<>();
+
+        State(Provider provider, Language language, Dynamic defaults, Dynamic values, Schema schema, List<String> validationErrors, Fetch fetch) {
+            this.provider = provider;
+            this.language = language;
+            this.defaults = defaults;
+            this.values = values;
+            this.schema = schema;
+            this.validationErrors = Collections.unmodifiableList(validationErrors);
+            this.fetch = fetch;
+
+            Set<String> interpolatedKeys = new HashSet<>();
+            Interpolator.collect("", tree(defaults), interpolatedKeys);
+            Interpolator.collect("", tree(values), interpolatedKeys);
+            this.interpolatedKeys = Collections.unmodifiableSet(interpolatedKeys);
+            this.valueIndex = ConfigNode.index(tree(values));
+            this.defaultIndex = ConfigNode.index(tree(defaults));
+        }
+
+        /**
+         * @return the bundled defaults for the given language, loaded the first time they're asked for
+         */
+        Dynamic getDefaults(Language language) {
+            if (language == this.language || provider == null) return defaults;
+            return bundles.computeIfAbsent(language, bundle -> provider.loadBundle(this, bundle));
+        }
+
+        /**
+         * @return the bundled defaults for the given language indexed by dotted key
+         */
+        Map<String, ConfigNode> getDefaultIndex(Language language) {
+            if (language == this.language || provider == null) return defaultIndex;
+            return bundleIndexes.computeIfAbsent(language, bundle -> ConfigNode.index(tree(getDefaults(bundle))));
+        }
+
+        /**
+         * @return the keys of values containing {@code ${references}} when reading in the given language
+         */
+        Set<String> getInterpolatedKeys(Language language) {
+            if (language == this.language || provider == null) return interpolatedKeys;
+            return bundleInterpolatedKeys.computeIfAbsent(language, bundle -> {
+                Set<String> keys = new HashSet<>(interpolatedKeys);
+                Interpolator.collect("", tree(getDefaults(bundle)), keys);
+                return Collections.unmodifiableSet(keys);
+            });
+        }
+
     }
 
 }
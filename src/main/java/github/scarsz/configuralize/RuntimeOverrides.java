@@ -0,0 +1,217 @@
+package github.scarsz.configuralize;
+
+import java.util.*;
+
+/**
+ * The runtime values of a {@link DynamicConfig}, safe to change from any number of threads.
+ * <p>
+ * Values are published as an immutable {@link Layer}: a writer derives the next layer from the current one, changing
+ * only the path to the keys it touches, and publishes it with a single volatile write. Readers never lock, and a
+ * batch of values becomes visible all at once. Values can be given a time to live; expiries are kept in a queue
+ * ordered by deadline, so dropping the values that expired costs only as much as there are of them.
+ */
+class RuntimeOverrides {
+
+    private volatile Layer layer = Layer.EMPTY;
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>();
+
+    /**
+     * @return the current values, which may hold expired ones until {@link #purge()} drops them
+     */
+    Layer current() {
+        return layer;
+    }
+
+    /**
+     * @param ttlNanos how long the value lives for, or 0 or less to keep it until it's cleared
+     * @return the value that was replaced, or null if the key had none that hadn't expired yet
+     */
+    synchronized Entry put(String key, Object value, long ttlNanos) {
+        Entry previous = live(layer.entries.get(key), System.nanoTime());
+        publish(layer.entries.put(key, entry(key, value, ttlNanos)));
+        return previous;
+    }
+    /**
+     * @return the keys whose replaced value had no time to live
+     */
+    synchronized Set<String> putAll(Map<String, ?> values, long ttlNanos) {
+        long now = System.nanoTime();
+        Set<String> replacedPermanent = new LinkedHashSet<>();
+        HashTrie<Entry> entries = layer.entries;
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            Entry previous = live(entries.get(value.getKey()), now);
+            if (previous != null && !previous.expires) replacedPermanent.add(value.getKey());
+            entries = entries.put(value.getKey(), entry(value.getKey(), value.getValue(), ttlNanos));
+        }
+        publish(entries);
+        return replacedPermanent;
+    }
+    /**
+     * Set the given values for keys that don't have a value which hasn't expired yet
+     */
+    synchronized void putAllIfAbsent(Map<String, ?> values) {
+        long now = System.nanoTime();
+        HashTrie<Entry> entries = layer.entries;
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            if (live(entries.get(value.getKey()), now) == null) {
+                entries = entries.put(value.getKey(), entry(value.getKey(), value.getValue(), 0));
+            }
+        }
+        publish(entries);
+    }
+
+    /**
+     * @return whether a value that hadn't expired yet was removed
+     */
+    synchronized boolean remove(String key) {
+        Entry entry = layer.entries.get(key);
+        if (entry == null) return false;
+        publish(layer.entries.remove(key));
+        return live(entry, System.nanoTime()) != null;
+    }
+    /**
+     * @return the keys whose value hadn't expired yet and was removed
+     */
+    synchronized Set<String> removeAll(Collection<String> keys) {
+        long now = System.nanoTime();
+        Set<String> removed = new LinkedHashSet<>();
+        HashTrie<Entry> entries = layer.entries;
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry == null) continue;
+            entries = entries.remove(key);
+            if (live(entry, now) != null) removed.add(key);
+        }
+        publish(entries);
+        return removed;
+    }
+
+    /**
+     * Drop the values that have expired. Checking costs a volatile read while no value has a time to live.
+     * @return whether any value was dropped
+     */
+    boolean purge() {
+        Layer current = layer;
+        if (!current.expires) return false;
+        long now = System.nanoTime();
+        if (!current.isExpired(now)) return false;
+        synchronized (this) {
+            HashTrie<Entry> entries = layer.entries;
+            Expiry expiry;
+            while ((expiry = expiries.peek()) != null && now - expiry.entry.expiresAt >= 0) {
+                expiries.poll();
+                // skip expiries of values that were replaced or removed since
+                if (entries.get(expiry.key) == expiry.entry) entries = entries.remove(expiry.key);
+            }
+            boolean purged = entries != layer.entries;
+            publish(entries);
+            return purged;
+        }
+    }
+
+    /**
+     * @return a copy of the values that haven't expired yet
+     */
+    Map<String, Object> copy(long now) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        layer.entries.forEach((key, entry) -> {
+            if (!entry.isExpired(now)) values.put(key, entry.value);
+        });
+        return values;
+    }
+
+    /**
+     * @return the values without a time to live, the ones worth persisting
+     */
+    Map<String, Object> getPermanent() {
+        Map<String, Object> permanent = new LinkedHashMap<>();
+        layer.entries.forEach((key, entry) -> {
+            if (!entry.expires) permanent.put(key, entry.value);
+        });
+        return permanent;
+    }
+
+    private Entry entry(String key, Object value, long ttlNanos) {
+        Entry entry = new Entry(value, ttlNanos);
+        if (entry.expires) expiries.add(new Expiry(key, entry));
+        return entry;
+    }
+
+    private static Entry live(Entry entry, long now) {
+        return entry != null && !entry.isExpired(now) ? entry : null;
+    }
+
+    private void publish(HashTrie<Entry> entries) {
+        Expiry next = expiries.peek();
+        // the head may belong to a value replaced since, which only makes the next purge come early
+        layer = new Layer(entries, next != null, next != null ? next.entry.expiresAt : 0);
+    }
+
+    /**
+     * The runtime values at one point in time
+     */
+    static final class Layer {
+
+        static final Layer EMPTY = new Layer(HashTrie.empty(), false, 0);
+
+        final HashTrie<Entry> entries;
+        private final boolean expires;
+        private final long nextExpiry;
+
+        private Layer(HashTrie<Entry> entries, boolean expires, long nextExpiry) {
+            this.entries = entries;
+            this.expires = expires;
+            this.nextExpiry = nextExpiry;
+        }
+
+        Entry get(String key) {
+            return entries.get(key);
+        }
+
+        /**
+         * @return whether a value of this layer may have expired by the given time
+         */
+        boolean isExpired(long now) {
+            return expires && now - nextExpiry >= 0;
+        }
+
+    }
+
+    static final class Entry {
+
+        final Object value;
+        final ConfigNode node;
+        final boolean expires;
+        final long expiresAt;
+
+        Entry(Object value, long ttlNanos) {
+            this.value = value;
+            this.node = ConfigNode.of(value);
+            this.expires = ttlNanos > 0;
+            this.expiresAt = expires ? System.nanoTime() + ttlNanos : 0;
+        }
+
+        boolean isExpired(long now) {
+            return expires && now - expiresAt >= 0;
+        }
+
+    }
+
+    private static final class Expiry implements Comparable<Expiry> {
+
+        final String key;
+        final Entry entry;
+
+        Expiry(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(entry.expiresAt - other.entry.expiresAt, 0);
+        }
+
+    }
+
+}
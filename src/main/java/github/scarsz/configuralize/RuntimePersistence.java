@@ -0,0 +1,229 @@
+package github.scarsz.configuralize;
+
+import alexh.weak.Dynamic;
+import github.scarsz.configuralize.codec.CodecException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind persistence of a {@link DynamicConfig}'s runtime values.
+ * Changes are only marked dirty; a single flush runs on the config's background thread once no change
+ * has happened for the debounce period, so a burst of changes results in one batched write. A steady stream
+ * of changes is still written at least once per maximum wait.
+ */
+@SuppressWarnings("unchecked")
+class RuntimePersistence {
+
+    private static final Object ABSENT = new Object();
+
+    private final DynamicConfig config;
+    private final File sidecar;
+    private final long debounceNanos;
+    private final long maxWaitNanos;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Map<String, Object> overwritten = new HashMap<>();
+    private volatile long firstChange;
+    private volatile long lastChange;
+    private volatile Exception lastFailure;
+
+    /**
+     * @param config the config to persist runtime values of
+     * @param sidecar the file to persist runtime values to, or null to write them back into their owning source files
+     * @param debounce how long the runtime values have to be left unchanged before they're written
+     * @param maxWait how long changes are written after at most, however often they keep changing
+     * @param unit the unit of the debounce period and maximum wait
+     */
+    RuntimePersistence(DynamicConfig config, File sidecar, long debounce, long maxWait, TimeUnit unit) {
+        if (maxWait < debounce) throw new IllegalArgumentException("Maximum wait can't be shorter than the debounce period");
+        this.config = config;
+        this.sidecar = sidecar != null ? sidecar.getAbsoluteFile() : null;
+        if (sidecar != null) config.getCodec(sidecar); // fail early on unsupported formats
+        this.debounceNanos = unit.toNanos(debounce);
+        this.maxWaitNanos = unit.toNanos(maxWait);
+    }
+
+    /**
+     * Reads previously persisted runtime values from the sidecar file, if there is one
+     */
+    Map<String, Object> read() throws IOException, ParseException {
+        if (sidecar == null || !sidecar.exists()) return Collections.emptyMap();
+        try (InputStream stream = Files.newInputStream(sidecar.toPath())) {
+            Map<String, Object> values = config.getCodec(sidecar).parse(stream);
+            return values != null ? values : Collections.emptyMap();
+        } catch (CodecException e) {
+            throw new ParseException(sidecar, e);
+        }
+    }
+
+    /**
+     * Marks the given key as changed, scheduling a flush if one isn't pending already
+     */
+    void changed(String key) {
+        dirty.add(key);
+        long now = System.nanoTime();
+        lastChange = now;
+        if (scheduled.compareAndSet(false, true)) {
+            firstChange = now;
+            config.getScheduler().schedule(this::run, debounceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void run() {
+        long now = System.nanoTime();
+        long remaining = Math.min(lastChange + debounceNanos, firstChange + maxWaitNanos) - now;
+        if (remaining > 0) {
+            // still receiving changes, push the write back instead of scheduling a task per change
+            config.getScheduler().schedule(this::run, remaining, TimeUnit.NANOSECONDS);
+            return;
+        }
+        scheduled.set(false);
+        try {
+            flush();
+        } catch (IOException | ParseException | RuntimeException ignored) {
+            // recorded as the last failure and the keys were marked dirty again,
+            // the next change or an explicit flush retries the write
+        }
+    }
+
+    /**
+     * @return why the last write failed, or null if it succeeded
+     */
+    Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return the keys changed since the last successful write
+     */
+    Set<String> getDirty() {
+        return new HashSet<>(dirty);
+    }
+
+    /**
+     * Writes all pending changes now
+     */
+    synchronized void flush() throws IOException, ParseException {
+        if (dirty.isEmpty()) return;
+        Set<String> keys = new HashSet<>(dirty);
+        dirty.removeAll(keys);
+        try {
+            Map<String, Object> values = config.getPermanentRuntimeValues();
+            if (sidecar != null) {
+                write(sidecar, values);
+            } else {
+                writeToSources(keys, values);
+            }
+            lastFailure = null;
+        } catch (IOException | ParseException | RuntimeException e) {
+            dirty.addAll(keys);
+            lastFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the given keys' runtime values into the files of the sources owning them. Keys that no longer have
+     * a permanent runtime value get back the value their file had before it was first overwritten, or are removed
+     * from the file if it didn't have one.
+     */
+    private void writeToSources(Set<String> keys, Map<String, Object> values) throws IOException, ParseException {
+        Map<Provider, Set<String>> byProvider = new LinkedHashMap<>();
+        for (String key : keys) {
+            // cleared keys only need reverting if they were written back before
+            if (!values.containsKey(key) && !overwritten.containsKey(key)) continue;
+            byProvider.computeIfAbsent(owner(key), provider -> new LinkedHashSet<>()).add(key);
+        }
+        for (Map.Entry<Provider, Set<String>> entry : byProvider.entrySet()) {
+            // re-read the file so edits made since the last load aren't clobbered
+            Map<String, Object> tree = deepCopy(Provider.tree(entry.getKey().loadValues()));
+            Map<String, Object> overwritten = new HashMap<>();
+            Set<String> reverted = new HashSet<>();
+            for (String key : entry.getValue()) {
+                if (values.containsKey(key)) {
+                    Object previous = put(tree, key, values.get(key));
+                    if (!this.overwritten.containsKey(key)) overwritten.put(key, previous);
+                } else {
+                    Object original = this.overwritten.get(key);
+                    if (original == ABSENT) {
+                        remove(tree, key);
+                    } else {
+                        put(tree, key, original);
+                    }
+                    reverted.add(key);
+                }
+            }
+            write(entry.getKey().getSource().getFile(), tree);
+            // only remember what the file had once it was actually written
+            this.overwritten.putAll(overwritten);
+            this.overwritten.keySet().removeAll(reverted);
+        }
+    }
+
+    /**
+     * The provider a key belongs to: the first one that has the key in its values or defaults, or else the first one
+     */
+    private Provider owner(String key) {
+        Collection<Provider> providers = config.getSources().values();
+        for (Provider provider : providers) {
+            if (isPresent(provider.getValues(), key) || isPresent(provider.getDefaults(), key)) return provider;
+        }
+        return providers.stream().findFirst().orElseThrow(() -> new IllegalStateException("No sources to persist " + key + " to"));
+    }
+    private static boolean isPresent(Dynamic dynamic, String key) {
+        return dynamic != null && dynamic.dget(key).isPresent();
+    }
+
+    /**
+     * @return the value the key had in the tree, or {@link #ABSENT} if it had none
+     */
+    private static Object put(Map<String, Object> tree, String key, Object value) {
+        String[] path = key.split("\\.");
+        Map<String, Object> section = tree;
+        for (int i = 0; i < path.length - 1; i++) {
+            Object child = section.get(path[i]);
+            if (!(child instanceof Map)) {
+                child = new LinkedHashMap<String, Object>();
+                section.put(path[i], child);
+            }
+            section = (Map<String, Object>) child;
+        }
+        String last = path[path.length - 1];
+        boolean existed = section.containsKey(last);
+        Object previous = section.put(last, value);
+        return existed ? previous : ABSENT;
+    }
+
+    private static void remove(Map<String, Object> tree, String key) {
+        String[] path = key.split("\\.");
+        Map<String, Object> section = tree;
+        for (int i = 0; i < path.length - 1; i++) {
+            Object child = section.get(path[i]);
+            if (!(child instanceof Map)) return;
+            section = (Map<String, Object>) child;
+        }
+        section.remove(path[path.length - 1]);
+    }
+
+    private static Map<String, Object> deepCopy(Map<String, Object> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        if (map == null) return copy;
+        map.forEach((key, value) -> copy.put(String.valueOf(key), value instanceof Map ? deepCopy((Map<String, Object>) value) : value));
+        return copy;
+    }
+
+    private void write(File file, Map<String, Object> values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        config.getCodec(file).serialize(values, out);
+        Provider.writeAtomically(file.toPath(), out.toByteArray());
+    }
+
+}
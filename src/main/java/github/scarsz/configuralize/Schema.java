@@ -0,0 +1,264 @@
+package github.scarsz.configuralize;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * The expected type of every key in a source, compiled from the source's bundled defaults.
+ * <p>
+ * User values are validated against the schema in a single pass when the source is loaded. Values that can be
+ * converted to the expected type are replaced by the converted value, i.e. {@code "5"} where the default is an
+ * integer becomes {@code 5}; values that can't be are reported and removed, so the default applies instead.
+ * Integers also have to fit the width of their default: where the default is an int, values beyond the range of an
+ * int are invalid, so reading them as an int never fails. Keys whose default is null or that don't exist in the
+ * defaults aren't checked.
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public class Schema {
+
+    public enum Type {
+        STRING("a string"),
+        INTEGER("an integer"),
+        DECIMAL("a number"),
+        BOOLEAN("a boolean"),
+        LIST("a list"),
+        SECTION("a section");
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        public static Type of(Object value) {
+            if (value == null) return null;
+            if (value instanceof Map) return SECTION;
+            if (value instanceof List) return LIST;
+            if (value instanceof Boolean) return BOOLEAN;
+            if (value instanceof Integer || value instanceof Long || value instanceof BigInteger
+                    || value instanceof Short || value instanceof Byte) return INTEGER;
+            if (value instanceof Number) return DECIMAL;
+            return STRING;
+        }
+    }
+
+    private static final Object INVALID = new Object();
+
+    private final Map<String, Type> types = new HashMap<>();
+    private final Map<String, Type> elementTypes = new HashMap<>();
+    private final Set<String> intKeys = new HashSet<>();
+    private final Set<String> intElementKeys = new HashSet<>();
+
+    /**
+     * Compile a schema from the given defaults tree
+     * @param defaults the defaults tree, may be null
+     */
+    public Schema(Map<?, ?> defaults) {
+        if (defaults != null) compile("", defaults);
+    }
+
+    private void compile(String prefix, Map<?, ?> section) {
+        for (Map.Entry<?, ?> entry : section.entrySet()) {
+            String key = prefix + entry.getKey();
+            Type type = Type.of(entry.getValue());
+            if (type == null) continue;
+            types.put(key, type);
+            if (type == Type.SECTION) {
+                compile(key + ".", (Map<?, ?>) entry.getValue());
+            } else if (type == Type.LIST) {
+                List<?> list = (List<?>) entry.getValue();
+                Type elementType = elementType(list);
+                if (elementType != null) elementTypes.put(key, elementType);
+                if (elementType == Type.INTEGER && list.stream().allMatch(Schema::isIntSized)) intElementKeys.add(key);
+            } else if (type == Type.INTEGER && isIntSized(entry.getValue())) {
+                intKeys.add(key);
+            }
+        }
+    }
+
+    private static boolean isIntSized(Object value) {
+        return value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * @return the type the list's elements all share, or null if they don't or the list is empty
+     */
+    private static Type elementType(List<?> list) {
+        Type shared = null;
+        for (Object element : list) {
+            Type type = Type.of(element);
+            if (type == null || type == Type.LIST || type == Type.SECTION) return null;
+            if (shared == null) {
+                shared = type;
+            } else if (shared != type) {
+                return null;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the expected type of the given key, or null if the key isn't constrained
+     */
+    public Type getType(String key) {
+        return types.get(key);
+    }
+
+    /**
+     * @return all keys constrained by this schema
+     */
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(types.keySet());
+    }
+
+    /**
+     * Validate the given values tree against this schema, converting values to their expected type in place
+     * and removing those that can't be converted
+     * @param values the values tree to validate
+     * @return a description of every value that didn't match the schema
+     */
+    public List<String> validate(Map<?, ?> values) {
+        List<String> errors = new ArrayList<>();
+        if (values != null) validate("", (Map<Object, Object>) values, errors);
+        return errors;
+    }
+
+    private void validate(String prefix, Map<Object, Object> section, List<String> errors) {
+        Iterator<Map.Entry<Object, Object>> iterator = section.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Object> entry = iterator.next();
+            String key = prefix + entry.getKey();
+            Type expected = types.get(key);
+            if (expected == null || entry.getValue() == null) continue;
+
+            Object value = coerce(key, expected, entry.getValue());
+            if (value == INVALID) {
+                String description = expected == Type.INTEGER && intKeys.contains(key)
+                        ? "an integer from " + Integer.MIN_VALUE + " to " + Integer.MAX_VALUE
+                        : expected.description;
+                errors.add(key + ": expected " + description + " but found " + describe(entry.getValue()));
+                iterator.remove();
+                continue;
+            }
+            if (value != entry.getValue()) entry.setValue(value);
+            if (expected == Type.SECTION) validate(key + ".", (Map<Object, Object>) value, errors);
+        }
+    }
+
+    private Object coerce(String key, Type expected, Object value) {
+        switch (expected) {
+            case SECTION:
+                return value instanceof Map ? value : INVALID;
+            case LIST:
+                if (!(value instanceof List)) return INVALID;
+                Type elementType = elementTypes.get(key);
+                if (elementType == null) return value;
+                boolean intElements = intElementKeys.contains(key);
+                List<Object> list = (List<Object>) value;
+                List<Object> coerced = null;
+                for (int i = 0; i < list.size(); i++) {
+                    Object element = list.get(i);
+                    Object converted = element != null ? convert(elementType, intElements, element) : null;
+                    if (converted == INVALID) return INVALID;
+                    if (converted != element) {
+                        if (coerced == null) coerced = new ArrayList<>(list);
+                        coerced.set(i, converted);
+                    }
+                }
+                return coerced != null ? coerced : value;
+            default:
+                return convert(expected, intKeys.contains(key), value);
+        }
+    }
+
+    /**
+     * Convert a scalar value to the given scalar type
+     * @param intSized whether integers have to fit in an int
+     * @return the converted value, the value itself if it already is of the type or {@link #INVALID}
+     */
+    static Object convert(Type type, boolean intSized, Object value) {
+        if (value instanceof Map || value instanceof List) return INVALID;
+        switch (type) {
+            case STRING:
+                return value instanceof String ? value : value.toString();
+            case BOOLEAN:
+                if (value instanceof Boolean) return value;
+                switch (value.toString().trim().toLowerCase()) {
+                    case "true": case "yes": case "on": case "1": return Boolean.TRUE;
+                    case "false": case "no": case "off": case "0": return Boolean.FALSE;
+                    default: return INVALID;
+                }
+            case INTEGER:
+                if (isIntSized(value)) return value;
+                BigInteger integer;
+                if (value instanceof Long || value instanceof BigInteger) {
+                    if (!intSized) return value;
+                    integer = value instanceof Long ? BigInteger.valueOf((Long) value) : (BigInteger) value;
+                } else {
+                    try {
+                        BigDecimal decimal = value instanceof Number
+                                ? new BigDecimal(value.toString())
+                                : new BigDecimal(value.toString().trim());
+                        integer = decimal.toBigIntegerExact();
+                    } catch (NumberFormatException | ArithmeticException e) {
+                        return INVALID;
+                    }
+                }
+                if (integer.bitLength() < 32) return integer.intValue();
+                if (intSized) return INVALID;
+                if (integer.bitLength() < 64) return integer.longValue();
+                return integer;
+            case DECIMAL:
+                if (value instanceof Double || value instanceof BigDecimal) return value;
+                if (value instanceof Number) return ((Number) value).doubleValue();
+                try {
+                    return Double.parseDouble(value.toString().trim());
+                } catch (NumberFormatException e) {
+                    return INVALID;
+                }
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * Convert a value given as text, such as an environment variable, to the key's expected type. Lists are
+     * written comma separated.
+     * @param key the key the value is for
+     * @param text the value as text
+     * @return the converted value, the text itself if the key isn't constrained, or null if it can't be converted
+     */
+    Object coerce(String key, String text) {
+        Type type = types.get(key);
+        if (type == null) return text;
+        switch (type) {
+            case SECTION:
+                return null;
+            case LIST:
+                Type elementType = elementTypes.get(key);
+                boolean intElements = intElementKeys.contains(key);
+                List<Object> list = new ArrayList<>();
+                for (String element : text.split(",")) {
+                    element = element.trim();
+                    if (element.isEmpty()) continue;
+                    Object converted = elementType != null ? convert(elementType, intElements, element) : element;
+                    if (converted == INVALID) return null;
+                    list.add(converted);
+                }
+                return list;
+            default:
+                Object converted = convert(type, intKeys.contains(key), text);
+                return converted != INVALID ? converted : null;
+        }
+    }
+
+    private static String describe(Object value) {
+        Type type = Type.of(value);
+        if (type == Type.STRING) return "\"" + value + "\"";
+        if (type == Type.SECTION || type == Type.LIST) return type.description;
+        return type.description + " " + value;
+    }
+
+}
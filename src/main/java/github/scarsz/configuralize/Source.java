@@ -1,5 +1,7 @@
 package github.scarsz.configuralize;
 
+import github.scarsz.configuralize.backend.ConfigBackend;
+
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
@@ -10,12 +12,21 @@ public class Source {
     private final Class<?> clazz;
     private final String resource;
     private final File file;
+    private final ConfigBackend backend;
 
     public Source(DynamicConfig config, Class<?> clazz, String resource, File file) {
+        this(config, clazz, resource, file, null);
+    }
+
+    /**
+     * @param backend the backend to fetch values from, the file caching the last good fetch; null to read the file
+     */
+    public Source(DynamicConfig config, Class<?> clazz, String resource, File file, ConfigBackend backend) {
         this.config = config;
         this.clazz = clazz;
         this.resource = resource;
         this.file = file.getAbsoluteFile();
+        this.backend = backend;
     }
 
     public String getResourcePath() {
@@ -60,4 +71,8 @@ public class Source {
         return this.clazz;
     }
 
+    public ConfigBackend getBackend() {
+        return backend;
+    }
+
 }
@@ -0,0 +1,22 @@
+package github.scarsz.configuralize;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when loading a config with strict validation enabled and values don't match their source's {@link Schema}
+ */
+public class ValidationException extends ParseException {
+
+    private final List<String> errors;
+
+    public ValidationException(List<String> errors) {
+        super("Invalid config values:\n  " + String.join("\n  ", errors));
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+}
@@ -0,0 +1,22 @@
+package github.scarsz.configuralize.backend;
+
+import java.io.IOException;
+
+/**
+ * A remote store a source's values are fetched from instead of read from its file.
+ * <p>
+ * Fetches are conditional: backends are handed the previous {@link Fetch} and should return
+ * {@link Fetch#notModified()} when the content hasn't changed since, so neither transfer nor re-parse happens.
+ * The source's file is kept as a cache of the last content whose values were fetched, validated and applied.
+ */
+public interface ConfigBackend {
+
+    /**
+     * Fetch the source's contents
+     * @param previous the last successful fetch, or null if there wasn't one
+     * @return the fetched contents, or {@link Fetch#notModified()} if they haven't changed since the previous fetch
+     * @throws IOException if fetching fails
+     */
+    Fetch fetch(Fetch previous) throws IOException;
+
+}
@@ -0,0 +1,45 @@
+package github.scarsz.configuralize.backend;
+
+/**
+ * POJO holding the result of a {@link ConfigBackend#fetch(Fetch)} and the validators for fetching conditionally next time
+ */
+public class Fetch {
+
+    private static final Fetch NOT_MODIFIED = new Fetch(null, null, null);
+
+    private final byte[] content;
+    private final String etag;
+    private final String lastModified;
+
+    /**
+     * @param content the fetched content
+     * @param etag the content's entity tag, or null if there is none
+     * @param lastModified the content's last modified date as sent by the backend, or null if there is none
+     */
+    public Fetch(byte[] content, String etag, String lastModified) {
+        this.content = content;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the result for content that hasn't changed since the previous fetch
+     */
+    public static Fetch notModified() {
+        return NOT_MODIFIED;
+    }
+
+    public boolean isModified() {
+        return this != NOT_MODIFIED;
+    }
+    public byte[] getContent() {
+        return content;
+    }
+    public String getEtag() {
+        return etag;
+    }
+    public String getLastModified() {
+        return lastModified;
+    }
+
+}
@@ -0,0 +1,84 @@
+package github.scarsz.configuralize.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches a source's contents over HTTP(S), conditionally with {@code If-None-Match} / {@code If-Modified-Since}
+ */
+@SuppressWarnings("WeakerAccess")
+public class HttpBackend implements ConfigBackend {
+
+    private final URL url;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private int connectTimeout = 5000;
+    private int readTimeout = 10000;
+
+    public HttpBackend(URL url) {
+        this.url = url;
+    }
+
+    /**
+     * Send the given header with every request, i.e. for authorization
+     * @return this backend
+     */
+    public HttpBackend header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param connectTimeout the connect timeout in milliseconds
+     * @param readTimeout the read timeout in milliseconds
+     * @return this backend
+     */
+    public HttpBackend timeouts(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    @Override
+    public Fetch fetch(Fetch previous) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setUseCaches(false);
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            headers.forEach(connection::setRequestProperty);
+            if (previous != null) {
+                if (previous.getEtag() != null) connection.setRequestProperty("If-None-Match", previous.getEtag());
+                if (previous.getLastModified() != null) connection.setRequestProperty("If-Modified-Since", previous.getLastModified());
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) return Fetch.notModified();
+            if (status / 100 != 2) throw new IOException("Fetching " + url + " failed with HTTP " + status);
+
+            InputStream stream = connection.getInputStream();
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) stream = new GZIPInputStream(stream);
+            try (InputStream body = stream) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(connection.getContentLength(), 1024));
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = body.read(buffer)) != -1) out.write(buffer, 0, read);
+                return new Fetch(out.toByteArray(), connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+            }
+        } finally {
+            InputStream error = connection.getErrorStream();
+            if (error != null) error.close();
+        }
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+}
@@ -0,0 +1,16 @@
+package github.scarsz.configuralize.codec;
+
+/**
+ * Thrown by a {@link FormatCodec} when the input isn't valid for its format
+ */
+public class CodecException extends Exception {
+
+    public CodecException(String message) {
+        super(message);
+    }
+
+    public CodecException(Throwable cause) {
+        super(cause.getMessage() != null ? cause.getMessage() : cause.toString(), cause);
+    }
+
+}
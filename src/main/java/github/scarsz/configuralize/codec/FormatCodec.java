@@ -0,0 +1,42 @@
+package github.scarsz.configuralize.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Parses and serializes config files of a particular format.
+ * <p>
+ * Codecs are picked by file extension. Besides the built-in {@link YamlCodec} and {@link JsonCodec}, codecs are
+ * discovered with {@link java.util.ServiceLoader} (list implementations in
+ * {@code META-INF/services/github.scarsz.configuralize.codec.FormatCodec}) and can be registered on a config with
+ * {@link github.scarsz.configuralize.DynamicConfig#registerCodec(FormatCodec)}, replacing any codec previously
+ * registered for the same extension.
+ */
+public interface FormatCodec {
+
+    /**
+     * @return the file extensions this codec handles, without the leading dot, i.e. "yml"
+     */
+    Collection<String> getExtensions();
+
+    /**
+     * Parse a config tree from the given stream. The stream is closed by the caller.
+     * @param stream the stream to read from
+     * @return the parsed config tree, or null if the stream held no document
+     * @throws IOException if reading from the stream fails
+     * @throws CodecException if the stream's contents aren't valid for this format
+     */
+    Map<String, Object> parse(InputStream stream) throws IOException, CodecException;
+
+    /**
+     * Serialize the given config tree to the given stream. The stream is closed by the caller.
+     * @param values the config tree to serialize
+     * @param stream the stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    void serialize(Map<String, ?> values, OutputStream stream) throws IOException;
+
+}
@@ -0,0 +1,70 @@
+package github.scarsz.configuralize.codec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * JSON codec backed by the built-in streaming {@link JsonReader}
+ */
+@SuppressWarnings("unchecked")
+public class JsonCodec implements FormatCodec {
+
+    @Override
+    public Collection<String> getExtensions() {
+        return Collections.singletonList("json");
+    }
+
+    @Override
+    public Map<String, Object> parse(InputStream stream) throws IOException, CodecException {
+        return parse(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a config tree from the given reader
+     * @see #parse(InputStream)
+     */
+    public Map<String, Object> parse(Reader reader) throws IOException, CodecException {
+        return root(new JsonReader(reader).read());
+    }
+
+    /**
+     * Parse a config tree from the given UTF-8 encoded bytes, i.e. a memory-mapped file. The bytes are decoded in
+     * one go and read without going through a {@link Reader}. The buffer's position is moved to its limit.
+     * @see #parse(InputStream)
+     */
+    public Map<String, Object> parse(ByteBuffer bytes) throws CodecException {
+        CharBuffer chars;
+        try {
+            chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+        } catch (CharacterCodingException e) {
+            throw new CodecException("Invalid UTF-8: " + e.getMessage());
+        }
+        char[] array = chars.hasArray() && chars.arrayOffset() == 0 && chars.position() == 0
+                ? chars.array()
+                : chars.toString().toCharArray();
+        try {
+            return root(new JsonReader(array, chars.limit()).read());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // never thrown reading from memory
+        }
+    }
+
+    private static Map<String, Object> root(Object parsed) throws CodecException {
+        if (parsed != null && !(parsed instanceof Map)) throw new CodecException("Root of a JSON config must be an object");
+        return (Map<String, Object>) parsed;
+    }
+
+    @Override
+    public void serialize(Map<String, ?> values, OutputStream stream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        new JsonWriter(writer).write(values);
+        writer.flush();
+    }
+
+}
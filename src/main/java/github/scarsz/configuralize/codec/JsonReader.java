@@ -0,0 +1,337 @@
+package github.scarsz.configuralize.codec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dependency-free streaming JSON reader that builds the config tree ({@link LinkedHashMap}s, {@link ArrayList}s,
+ * {@link String}s, {@link Long}s, {@link Double}s and {@link Boolean}s) directly while reading. Integers are read as
+ * {@link Long} regardless of their size, as json-simple did; only integers beyond the range of a long become
+ * {@link BigDecimal}s.
+ * <p>
+ * Input is read through a fixed-size buffer and string contents are collected into a reused scratch array,
+ * so the only objects allocated are the ones that end up in the tree. Object keys are interned: a key seen
+ * before in the same document is served from a small cache without allocating a new {@link String}.
+ * Objects and arrays nested deeper than {@value #MAX_DEPTH} levels are rejected rather than overflowing the stack.
+ * <p>
+ * Instances are not thread-safe and read a single document.
+ */
+class JsonReader {
+
+    private static final int BUFFER_SIZE = 8192;
+    static final int MAX_DEPTH = 512;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private int line = 1;
+    private int lineStart = 0;
+    private long consumed = 0;
+
+    private char[] scratch = new char[64];
+    private int scratchLength = 0;
+
+    private String[] keys = new String[256];
+    private int keyCount = 0;
+
+    private int depth = 0;
+
+    JsonReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Read straight from the given characters instead of copying them through a buffer
+     * @param chars the characters to read, which must not be modified while reading
+     * @param length how many characters from the start of the array make up the document
+     */
+    JsonReader(char[] chars, int length) {
+        this.reader = null;
+        this.buffer = chars;
+        this.limit = length;
+    }
+
+    /**
+     * Read the document's root value
+     * @return the root value, or null if the input is empty
+     */
+    Object read() throws IOException, CodecException {
+        int c = skipWhitespace();
+        if (c == -1) return null;
+        Object value = readValue(c);
+        if (skipWhitespace() != -1) throw error("Unexpected content after root value");
+        return value;
+    }
+
+    private Object readValue(int c) throws IOException, CodecException {
+        switch (c) {
+            case '{': enter(); return exit(readObject());
+            case '[': enter(); return exit(readArray());
+            case '"': return readString();
+            case 't': expect("rue"); return Boolean.TRUE;
+            case 'f': expect("alse"); return Boolean.FALSE;
+            case 'n': expect("ull"); return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return readNumber(c);
+                throw error(c == -1 ? "Unexpected end of input" : "Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void enter() throws CodecException {
+        if (++depth > MAX_DEPTH) throw error("Nested deeper than " + MAX_DEPTH + " levels");
+    }
+    private <T> T exit(T value) {
+        depth--;
+        return value;
+    }
+
+    private Map<String, Object> readObject() throws IOException, CodecException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        int c = skipWhitespace();
+        if (c == '}') return map;
+        while (true) {
+            if (c != '"') throw error("Expected object key");
+            String key = readKey();
+            if (skipWhitespace() != ':') throw error("Expected ':' after object key");
+            map.put(key, readValue(skipWhitespace()));
+            c = skipWhitespace();
+            if (c == '}') return map;
+            if (c != ',') throw error("Expected ',' or '}' in object");
+            c = skipWhitespace();
+        }
+    }
+
+    private List<Object> readArray() throws IOException, CodecException {
+        List<Object> list = new ArrayList<>();
+        int c = skipWhitespace();
+        if (c == ']') return list;
+        while (true) {
+            list.add(readValue(c));
+            c = skipWhitespace();
+            if (c == ']') return list;
+            if (c != ',') throw error("Expected ',' or ']' in array");
+            c = skipWhitespace();
+        }
+    }
+
+    private String readString() throws IOException, CodecException {
+        readStringContents();
+        return new String(scratch, 0, scratchLength);
+    }
+
+    private String readKey() throws IOException, CodecException {
+        readStringContents();
+        int hash = 0;
+        for (int i = 0; i < scratchLength; i++) hash = 31 * hash + scratch[i];
+        int mask = keys.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key == null) {
+                key = new String(scratch, 0, scratchLength).intern();
+                keys[slot] = key;
+                if (++keyCount * 2 > keys.length) growKeys();
+                return key;
+            }
+            if (key.hashCode() == hash && contentEquals(key)) return key;
+        }
+    }
+
+    private boolean contentEquals(String key) {
+        if (key.length() != scratchLength) return false;
+        for (int i = 0; i < scratchLength; i++) {
+            if (key.charAt(i) != scratch[i]) return false;
+        }
+        return true;
+    }
+
+    private void growKeys() {
+        String[] old = keys;
+        keys = new String[old.length * 2];
+        int mask = keys.length - 1;
+        for (String key : old) {
+            if (key == null) continue;
+            int slot = mix(key.hashCode()) & mask;
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = key;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void readStringContents() throws IOException, CodecException {
+        scratchLength = 0;
+        while (true) {
+            if (position == limit && !fill()) throw error("Unterminated string");
+            // copy unescaped runs straight from the buffer
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\' || c < 0x20) break;
+                position++;
+            }
+            append(buffer, start, position - start);
+            if (position == limit) continue;
+
+            char c = buffer[position++];
+            if (c == '"') return;
+            if (c != '\\') throw error("Unescaped control character in string");
+            int escaped = next();
+            switch (escaped) {
+                case '"': case '\\': case '/': append((char) escaped); break;
+                case 'b': append('\b'); break;
+                case 'f': append('\f'); break;
+                case 'n': append('\n'); break;
+                case 'r': append('\r'); break;
+                case 't': append('\t'); break;
+                case 'u':
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit == -1) throw error("Invalid unicode escape");
+                        value = (value << 4) | digit;
+                    }
+                    append((char) value);
+                    break;
+                default:
+                    throw error("Invalid escape sequence");
+            }
+        }
+    }
+
+    private Number readNumber(int first) throws IOException, CodecException {
+        scratchLength = 0;
+        append((char) first);
+        int c = first;
+        if (c == '-') {
+            c = peek();
+            if (!isDigit(c)) throw error("Invalid number");
+            take();
+        }
+        if (c == '0') {
+            if (isDigit(peek())) throw error("Leading zeros are not allowed");
+        } else {
+            digits();
+        }
+        boolean decimal = false;
+        if (peek() == '.') {
+            decimal = true;
+            take();
+            if (digits() == 0) throw error("Invalid number");
+        }
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            decimal = true;
+            take();
+            c = peek();
+            if (c == '+' || c == '-') take();
+            if (digits() == 0) throw error("Invalid number");
+        }
+
+        if (decimal) return Double.parseDouble(new String(scratch, 0, scratchLength));
+        boolean negative = first == '-';
+        int digits = negative ? scratchLength - 1 : scratchLength;
+        if (digits > 18) {
+            // might not fit a long, 18 digits always do
+            BigInteger big = new BigInteger(new String(scratch, 0, scratchLength));
+            return big.bitLength() < 64 ? (Number) big.longValue() : new BigDecimal(big);
+        }
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < scratchLength; i++) value = value * 10 + (scratch[i] - '0');
+        return negative ? -value : value;
+    }
+
+    private int digits() throws IOException {
+        int count = 0;
+        while (isDigit(peek())) {
+            take();
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return the next character without consuming it, or -1 at the end of input
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    /**
+     * Appends the character last returned by {@link #peek()} and consumes it
+     */
+    private void take() {
+        append(buffer[position++]);
+    }
+
+    private void expect(String rest) throws IOException, CodecException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (next() != rest.charAt(i)) throw error("Invalid literal");
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            char c = buffer[position++];
+            if (c == '\n') {
+                line++;
+                lineStart = (int) (consumed + position);
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    private int next() throws IOException, CodecException {
+        if (position == limit && !fill()) throw error("Unexpected end of input");
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        if (reader == null) return false;
+        consumed += limit;
+        position = 0;
+        limit = 0;
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read == -1) return false;
+        limit = read;
+        return true;
+    }
+
+    private void append(char c) {
+        if (scratchLength == scratch.length) scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        scratch[scratchLength++] = c;
+    }
+    private void append(char[] chars, int offset, int length) {
+        if (scratchLength + length > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + length));
+        }
+        System.arraycopy(chars, offset, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private CodecException error(String message) {
+        int column = (int) (consumed + position - lineStart);
+        return new CodecException(message + " at line " + line + ", column " + column);
+    }
+
+}
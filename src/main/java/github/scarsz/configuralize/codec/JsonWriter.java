@@ -0,0 +1,100 @@
+package github.scarsz.configuralize.codec;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Minimal JSON writer for config trees, pretty-printed with two space indentation
+ */
+class JsonWriter {
+
+    private final Writer writer;
+
+    JsonWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    void write(Object value) throws IOException {
+        write(value, 0);
+        writer.write('\n');
+    }
+
+    private void write(Object value, int depth) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (map.isEmpty()) {
+                writer.write("{}");
+                return;
+            }
+            writer.write('{');
+            Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<?, ?> entry = iterator.next();
+                newLine(depth + 1);
+                writeString(String.valueOf(entry.getKey()));
+                writer.write(": ");
+                write(entry.getValue(), depth + 1);
+                if (iterator.hasNext()) writer.write(',');
+            }
+            newLine(depth);
+            writer.write('}');
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            if (collection.isEmpty()) {
+                writer.write("[]");
+                return;
+            }
+            writer.write('[');
+            Iterator<?> iterator = collection.iterator();
+            while (iterator.hasNext()) {
+                newLine(depth + 1);
+                write(iterator.next(), depth + 1);
+                if (iterator.hasNext()) writer.write(',');
+            }
+            newLine(depth);
+            writer.write(']');
+        } else if (value instanceof Number || value instanceof Boolean) {
+            String string = value.toString();
+            writer.write(string.equals("NaN") || string.endsWith("Infinity") ? "null" : string);
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void newLine(int depth) throws IOException {
+        writer.write('\n');
+        for (int i = 0; i < depth; i++) writer.write("  ");
+    }
+
+    private void writeString(String string) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            String escape;
+            switch (c) {
+                case '"': escape = "\\\""; break;
+                case '\\': escape = "\\\\"; break;
+                case '\n': escape = "\\n"; break;
+                case '\r': escape = "\\r"; break;
+                case '\t': escape = "\\t"; break;
+                case '\b': escape = "\\b"; break;
+                case '\f': escape = "\\f"; break;
+                default:
+                    if (c >= 0x20) continue;
+                    escape = String.format("\\u%04x", (int) c);
+            }
+            writer.write(string, start, i - start);
+            writer.write(escape);
+            start = i + 1;
+        }
+        writer.write(string, start, string.length() - start);
+        writer.write('"');
+    }
+
+}
@@ -0,0 +1,74 @@
+package github.scarsz.configuralize.codec;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.representer.Representer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * YAML codec backed by SnakeYAML. Only standard YAML types are constructed: global tags such as
+ * {@code !!com.example.Type} are rejected, so documents fetched from a backend can't instantiate arbitrary classes.
+ */
+@SuppressWarnings("unchecked")
+public class YamlCodec implements FormatCodec {
+
+    /**
+     * The default limit on the size of documents parsed, in code points: SnakeYAML's own 3 MiB, which guards against
+     * oversized input. Configs of around 100,000 keys exceed it; register a codec with a larger limit to read those.
+     */
+    public static final int DEFAULT_CODE_POINT_LIMIT = 3 * 1024 * 1024;
+
+    // SnakeYAML instances aren't thread-safe
+    private final ThreadLocal<Yaml> yaml;
+
+    public YamlCodec() {
+        this(DEFAULT_CODE_POINT_LIMIT);
+    }
+
+    /**
+     * @param codePointLimit the largest document to parse, in code points
+     */
+    public YamlCodec(int codePointLimit) {
+        this.yaml = ThreadLocal.withInitial(() -> {
+            DumperOptions dumperOptions = new DumperOptions();
+            dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+            LoaderOptions loaderOptions = new LoaderOptions();
+            loaderOptions.setCodePointLimit(codePointLimit);
+            return new Yaml(new SafeConstructor(loaderOptions), new Representer(dumperOptions), dumperOptions, loaderOptions);
+        });
+    }
+
+    @Override
+    public Collection<String> getExtensions() {
+        return Collections.unmodifiableList(Arrays.asList("yml", "yaml"));
+    }
+
+    @Override
+    public Map<String, Object> parse(InputStream stream) throws CodecException {
+        Object root;
+        try {
+            root = yaml.get().load(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        } catch (YAMLException e) {
+            throw new CodecException(e);
+        }
+        if (root != null && !(root instanceof Map)) throw new CodecException("Expected a mapping at the root of the document");
+        return (Map<String, Object>) root;
+    }
+
+    @Override
+    public void serialize(Map<String, ?> values, OutputStream stream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        yaml.get().dump(values, writer);
+        writer.flush();
+    }
+
+}
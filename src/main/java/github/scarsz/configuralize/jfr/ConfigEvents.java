@@ -0,0 +1,102 @@
+package github.scarsz.configuralize.jfr;
+
+/**
+ * Internal facade over the JDK Flight Recorder events emitted while loading, saving and mapping configs.
+ * <p>
+ * The JFR implementation is only compiled on JDK 11+ (the {@code jfr} Maven profile) and only loaded when
+ * {@code jdk.jfr} is available at runtime; everywhere else every event is a no-op.
+ */
+public abstract class ConfigEvents {
+
+    private static final ConfigEvents INSTANCE = create();
+
+    private static ConfigEvents create() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (ConfigEvents) Class.forName("github.scarsz.configuralize.jfr.JfrConfigEvents").getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            return new ConfigEvents() {};
+        }
+    }
+
+    public static ConfigEvents get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Begin timing the load and parse of a source
+     * @param source the resource name of the source
+     * @param origin where the source is being read from, i.e. "file" or "resource"
+     * @param format the format of the source, i.e. "yml"
+     */
+    public Load beginLoad(String source, String origin, String format) {
+        return Load.NONE;
+    }
+
+    /**
+     * Begin timing saving a source's defaults
+     * @param source the resource name of the source
+     */
+    public Save beginSave(String source) {
+        return Save.NONE;
+    }
+
+    /**
+     * Begin timing mapping options to a class
+     * @param clazz the class being mapped to
+     */
+    public Map beginMap(Class<?> clazz) {
+        return Map.NONE;
+    }
+
+    /**
+     * A timed phase, committed once it ends whether it succeeded or not
+     */
+    public interface Phase {
+        /**
+         * Record that the phase failed, with the error that made it fail
+         */
+        default void failed(Throwable error) {}
+
+        /**
+         * Commit the event, in a finally block so failed phases are recorded too
+         */
+        default void commit() {}
+    }
+
+    public interface Load extends Phase {
+        Load NONE = new Load() {};
+
+        /**
+         * @return whether this event is being recorded, if not there's no need to collect its details
+         */
+        default boolean isEnabled() {
+            return false;
+        }
+
+        /**
+         * Record that the source was parsed
+         */
+        default void parsed(long bytes, int keys) {}
+    }
+
+    public interface Save extends Phase {
+        Save NONE = new Save() {};
+
+        /**
+         * Record that saving succeeded
+         * @param written false if the file was skipped
+         */
+        default void saved(boolean written) {}
+    }
+
+    public interface Map extends Phase {
+        Map NONE = new Map() {};
+
+        /**
+         * Record that mapping succeeded
+         */
+        default void mapped(int fields) {}
+    }
+
+}
@@ -2,6 +2,7 @@ package github.scarsz.configuralize.mapping;
 
 import alexh.weak.Dynamic;
 
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -18,6 +19,20 @@ public class MappingFunction<T> {
         this.function = function;
     }
 
+    /**
+     * Find the mapping function for the given key
+     * @param mappings the mapping functions to search, may be null
+     * @param key the key to find the mapping function for
+     * @return the first mapping function for the key, or null if there isn't one
+     */
+    public static MappingFunction<?> find(List<MappingFunction<?>> mappings, String key) {
+        if (mappings == null) return null;
+        for (MappingFunction<?> mapping : mappings) {
+            if (mapping.getKey().equals(key)) return mapping;
+        }
+        return null;
+    }
+
     public String getKey() {
         return key;
     }
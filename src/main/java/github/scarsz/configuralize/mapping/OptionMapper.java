@@ -0,0 +1,33 @@
+package github.scarsz.configuralize.mapping;
+
+import github.scarsz.configuralize.ConfigView;
+
+import java.util.List;
+
+/**
+ * Maps config values to one class's static fields marked with {@link Option}.
+ * Implementations without reflection are generated at compile time by {@link OptionProcessor}, registered as services
+ * and picked up automatically by {@link github.scarsz.configuralize.DynamicConfig#map(Class, List)}, see
+ * {@link OptionMappers}; classes without one are mapped by a {@link ReflectiveOptionMapper}
+ */
+public interface OptionMapper {
+
+    /**
+     * Set the mapped class's option fields to their values in the given config
+     * @param config the config to read values from
+     * @param mappings mapping functions to use when mapping values to the appropriate type
+     * @return the number of fields mapped
+     */
+    int map(ConfigView config, List<MappingFunction<?>> mappings);
+
+    /**
+     * @return the class whose options this mapper sets
+     */
+    Class<?> getMappedClass();
+
+    /**
+     * @return the classes declared inside the mapped class, or null if they aren't all accessible to the mapper
+     */
+    Class<?>[] getNestedClasses();
+
+}
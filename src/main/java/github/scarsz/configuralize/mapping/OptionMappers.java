@@ -0,0 +1,97 @@
+package github.scarsz.configuralize.mapping;
+
+import github.scarsz.configuralize.ConfigNode;
+import github.scarsz.configuralize.ConfigView;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Locates the {@link OptionMapper} generated for a class, if it was compiled with {@link OptionProcessor}.
+ * Generated mappers are registered as {@link ServiceLoader} services by the processor, so finding them doesn't
+ * need reflection and works in native images without extra configuration.
+ */
+public final class OptionMappers {
+
+    static final String SUFFIX = "_OptionMapper";
+
+    /**
+     * Kept on the mapped classes themselves, so a class loader and its mappers can be collected once it's unused
+     */
+    private static final ClassValue<Optional<OptionMapper>> MAPPERS = new ClassValue<Optional<OptionMapper>>() {
+        @Override
+        protected Optional<OptionMapper> computeValue(Class<?> clazz) {
+            return Optional.ofNullable(load(clazz));
+        }
+    };
+
+    private OptionMappers() {}
+
+    /**
+     * @param clazz the class to find the generated mapper for
+     * @return the generated mapper for the class, or null if there isn't one
+     */
+    public static OptionMapper get(Class<?> clazz) {
+        return MAPPERS.get(clazz).orElse(null);
+    }
+
+    /**
+     * Scan the mappers registered with the class's loader for the one mapping it, done once per class
+     */
+    private static OptionMapper load(Class<?> clazz) {
+        if (clazz.getClassLoader() == null) return null;
+        Iterator<OptionMapper> iterator = ServiceLoader.load(OptionMapper.class, clazz.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) return null;
+                OptionMapper mapper = iterator.next();
+                if (mapper.getMappedClass() == clazz) return mapper;
+            } catch (ServiceConfigurationError | LinkageError e) {
+                // registered by an earlier compilation and removed since, its class is mapped reflectively
+            }
+        }
+    }
+
+    /**
+     * Read a key as the type of the option field it's mapped to, the same way generated mappers do: int, long,
+     * double and boolean fields fail if the key is missing, any other field is set to null
+     * @param config the config to read the value from
+     * @param key the option's key
+     * @param type the type of the option field
+     * @return the converted value, or the raw value for types without a conversion
+     */
+    static Object convert(ConfigView config, String key, Class<?> type) {
+        if (type == int.class) return config.getInt(key);
+        if (type == long.class) return config.getLong(key);
+        if (type == double.class) return config.getDouble(key);
+        if (type == boolean.class) return config.getBoolean(key);
+
+        ConfigNode node = config.nodeSilent(key);
+        if (node.isNull()) return null;
+        if (type == Integer.class) return node.asInt();
+        if (type == Long.class) return node.asLong();
+        if (type == Double.class) return node.asDouble();
+        if (type == Boolean.class) return node.asBoolean();
+        if (type == String.class) return node.asString();
+        if (type == BigDecimal.class) return node.asDecimal();
+        if (type == List.class) return node.asList();
+        if (type == Map.class) return node.asMap();
+        return node.asObject();
+    }
+
+    /**
+     * Get the name of the mapper generated for a class, i.e. {@code a.b.Outer_Inner_OptionMapper} for {@code a.b.Outer$Inner}
+     * @param binaryName the binary name of the mapped class
+     * @return the fully qualified name of the generated mapper
+     */
+    static String getMapperName(String binaryName) {
+        int packageEnd = binaryName.lastIndexOf('.') + 1;
+        return binaryName.substring(0, packageEnd) + binaryName.substring(packageEnd).replace('$', '_') + SUFFIX;
+    }
+
+}
@@ -0,0 +1,268 @@
+package github.scarsz.configuralize.mapping;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates an {@link OptionMapper} for every class containing static fields marked with {@link Option}, so they
+ * can be mapped with direct field assignments instead of reflection. Classes with options the generated mapper
+ * couldn't assign (private or final fields, private classes) are left to the reflective mapper.
+ * <p>
+ * Registered as a service, so it runs automatically when Configuralize is on the compile classpath. The generated
+ * mappers are in turn registered as {@link OptionMapper} services for {@link OptionMappers} to find.
+ */
+public class OptionProcessor extends AbstractProcessor {
+
+    private final Set<String> generated = new HashSet<>();
+    private final Set<String> mappers = new TreeSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(Option.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServices();
+            return false;
+        }
+
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Option.class)) {
+            Element enclosing = element.getEnclosingElement();
+            while (enclosing instanceof TypeElement) {
+                types.add((TypeElement) enclosing);
+                enclosing = enclosing.getEnclosingElement();
+            }
+        }
+
+        for (TypeElement type : types) {
+            String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+            if (!generated.add(binaryName)) continue;
+            String reason = getUnmappableReason(type);
+            if (reason != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Not generating an option mapper, " + reason + "; it will be mapped reflectively", type);
+                continue;
+            }
+
+            try {
+                String mapperName = OptionMappers.getMapperName(binaryName);
+                write(type, mapperName);
+                mappers.add(mapperName);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write option mapper: " + e, type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Register the generated mappers as {@link OptionMapper} services, keeping those of classes that weren't
+     * recompiled this time
+     */
+    private void writeServices() {
+        if (mappers.isEmpty()) return;
+        String resource = "META-INF/services/" + OptionMapper.class.getName();
+        Set<String> services = new TreeSet<>();
+        try (BufferedReader reader = new BufferedReader(processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resource).openReader(true))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) services.add(line);
+            }
+        } catch (IOException ignored) {
+            // nothing registered yet
+        }
+        services.addAll(mappers);
+
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resource).openWriter()) {
+            for (String service : services) writer.write(service + "\n");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to register option mappers: " + e);
+        }
+    }
+
+    /**
+     * @return why a mapper generated in the type's package couldn't assign the type's options, or null if it can
+     */
+    private String getUnmappableReason(TypeElement type) {
+        for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            TypeElement enclosingType = (TypeElement) enclosing;
+            if (enclosingType.getNestingKind() != NestingKind.TOP_LEVEL && enclosingType.getNestingKind() != NestingKind.MEMBER) {
+                return enclosingType + " is a local or anonymous class";
+            }
+            if (enclosingType.getModifiers().contains(Modifier.PRIVATE)) {
+                return enclosingType + " is private";
+            }
+        }
+        for (VariableElement field : getOptionFields(type)) {
+            if (field.getModifiers().contains(Modifier.PRIVATE)) return "option " + field + " is private";
+            if (field.getModifiers().contains(Modifier.FINAL)) return "option " + field + " is final";
+        }
+        return null;
+    }
+
+    private List<VariableElement> getOptionFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (Element element : type.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.FIELD) continue;
+            if (!element.getModifiers().contains(Modifier.STATIC)) continue;
+            if (element.getAnnotation(Option.class) == null) continue;
+            fields.add((VariableElement) element);
+        }
+        return fields;
+    }
+
+    private void write(TypeElement type, String mapperName) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String simpleName = mapperName.substring(mapperName.lastIndexOf('.') + 1);
+        String target = type.getQualifiedName().toString();
+        List<VariableElement> fields = getOptionFields(type);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageElement.isUnnamed()) {
+            source.append("package ").append(packageElement.getQualifiedName()).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Maps the options of {@link ").append(target).append("}, generated by ").append(OptionProcessor.class.getName()).append("\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" implements ").append(OptionMapper.class.getName()).append(" {\n\n");
+
+        source.append("    @Override\n")
+                .append("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("    public int map(github.scarsz.configuralize.ConfigView config, java.util.List<")
+                .append(MappingFunction.class.getName()).append("<?>> mappings) {\n");
+        if (!fields.isEmpty()) {
+            source.append("        String key = null;\n")
+                    .append("        try {\n")
+                    .append("            github.scarsz.configuralize.ConfigNode node;\n")
+                    .append("            ").append(MappingFunction.class.getName()).append("<?> function;\n");
+            for (VariableElement field : fields) {
+                TypeMirror fieldType = field.asType();
+                String assignment = "            " + target + "." + field.getSimpleName() + " = ";
+                source.append("\n")
+                        .append("            key = ").append(processingEnv.getElementUtils().getConstantExpression(field.getAnnotation(Option.class).key())).append(";\n")
+                        .append("            function = ").append(MappingFunction.class.getName()).append(".find(mappings, key);\n")
+                        .append("            if (function != null) {\n")
+                        .append("    ").append(assignment).append("(").append(getCastType(fieldType)).append(") function.getFunction().apply(config.dgetSilent(key));\n")
+                        .append("            } else {\n")
+                        .append("    ").append(assignment).append(getConversion(fieldType)).append(";\n")
+                        .append("            }\n");
+            }
+            source.append("        } catch (Throwable e) {\n")
+                    .append("            throw new RuntimeException(\"Failed to map key \" + key, e);\n")
+                    .append("        }\n");
+        }
+        source.append("        return ").append(fields.size()).append(";\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public Class<?> getMappedClass() {\n")
+                .append("        return ").append(target).append(".class;\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public Class<?>[] getNestedClasses() {\n")
+                .append("        return ").append(getNestedClasses(type)).append(";\n")
+                .append("    }\n\n")
+                .append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(mapperName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private String getNestedClasses(TypeElement type) {
+        StringBuilder classes = new StringBuilder("new Class<?>[] {");
+        boolean first = true;
+        for (Element element : type.getEnclosedElements()) {
+            if (!(element instanceof TypeElement)) continue;
+            if (element.getModifiers().contains(Modifier.PRIVATE)) return "null";
+            if (!first) classes.append(", ");
+            classes.append(((TypeElement) element).getQualifiedName()).append(".class");
+            first = false;
+        }
+        return classes.append("}").toString();
+    }
+
+    /**
+     * @return the expression reading {@code key} from {@code config} as the field's type, converting it the same way
+     * {@link ReflectiveOptionMapper} does: primitives fail on missing keys, other types are null
+     */
+    private String getConversion(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return "config.getInt(key)";
+            case LONG:
+                return "config.getLong(key)";
+            case DOUBLE:
+                return "config.getDouble(key)";
+            case BOOLEAN:
+                return "config.getBoolean(key)";
+            case DECLARED:
+                switch (getCastType(type)) {
+                    case "java.lang.Integer":
+                        return getNullableConversion("asInt()");
+                    case "java.lang.Long":
+                        return getNullableConversion("asLong()");
+                    case "java.lang.Double":
+                        return getNullableConversion("asDouble()");
+                    case "java.lang.Boolean":
+                        return getNullableConversion("asBoolean()");
+                    case "java.lang.String":
+                        return getNullableConversion("asString()");
+                    case "java.math.BigDecimal":
+                        return getNullableConversion("asDecimal()");
+                    case "java.util.List":
+                        return getNullableConversion("asList()");
+                    case "java.util.Map":
+                        return getNullableConversion("asMap()");
+                }
+                break;
+        }
+        return "(" + getCastType(type) + ") config.nodeSilent(key).asObject()";
+    }
+    private String getNullableConversion(String accessor) {
+        return "(node = config.nodeSilent(key)).isNull() ? null : node." + accessor;
+    }
+
+    private String getCastType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        if (type.getKind() == TypeKind.DECLARED || type.getKind() == TypeKind.ARRAY) {
+            return processingEnv.getTypeUtils().erasure(type).toString();
+        }
+        return "Object";
+    }
+
+}
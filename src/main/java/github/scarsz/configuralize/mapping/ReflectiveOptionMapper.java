@@ -0,0 +1,83 @@
+package github.scarsz.configuralize.mapping;
+
+import github.scarsz.configuralize.ConfigView;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Maps config values to one class's static fields marked with {@link Option} by reflectively setting them.
+ * Used for classes that don't have a mapper generated by {@link OptionProcessor}, converting values the same way
+ * generated mappers do
+ */
+public class ReflectiveOptionMapper implements OptionMapper {
+
+    private final Class<?> clazz;
+
+    /**
+     * @param clazz the class to map values to
+     */
+    public ReflectiveOptionMapper(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * Iterate over the class's declared static fields, setting fields marked with {@link Option} to the option value
+     */
+    @Override
+    public int map(ConfigView config, List<MappingFunction<?>> mappings) {
+        int mapped = 0;
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) continue;
+
+            if (!field.isAnnotationPresent(Option.class)) continue;
+            Option fieldAnnotation = field.getAnnotation(Option.class);
+            String key = fieldAnnotation.key();
+
+            if (!field.isAccessible()) {
+                field.setAccessible(true);
+            }
+
+            boolean valueExists = Modifier.isFinal(field.getModifiers());
+            if (valueExists) {
+                try {
+                    Field modifiersField = Field.class.getDeclaredField("modifiers");
+                    modifiersField.setAccessible(true);
+                    modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
+                } catch (IllegalAccessException | NoSuchFieldException e) {
+                    throw new RuntimeException("Failed to reflectively set field " + field + " to non-final", e);
+                }
+            }
+
+            try {
+                Object value;
+                MappingFunction<?> mappingFunction = MappingFunction.find(mappings, key);
+
+                if (mappingFunction != null) {
+                    value = mappingFunction.getFunction().apply(config.dgetSilent(key));
+                } else {
+                    value = OptionMappers.convert(config, key, field.getType());
+                }
+                field.set(null, value);
+                mapped++;
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Field " + field + " is not accessible");
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to map key " + key, e);
+            }
+        }
+        return mapped;
+    }
+
+    @Override
+    public Class<?> getMappedClass() {
+        return clazz;
+    }
+
+    @Override
+    public Class<?>[] getNestedClasses() {
+        return clazz.getDeclaredClasses();
+    }
+
+}
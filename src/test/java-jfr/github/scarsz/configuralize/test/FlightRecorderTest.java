@@ -0,0 +1,136 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import github.scarsz.configuralize.mapping.Option;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class FlightRecorderTest {
+
+    private DynamicConfig config;
+    private Path dump;
+
+    @Before
+    public void setUp() throws IOException {
+        config = new DynamicConfig();
+        config.addSource(FlightRecorderTest.class, "config", new File("config.yml"));
+        dump = Files.createTempFile("configuralize", ".jfr");
+    }
+
+    @Test
+    public void test() throws IOException, ParseException {
+        try (Recording recording = new Recording()) {
+            recording.enable("configuralize.Load").withoutThreshold();
+            recording.enable("configuralize.SaveDefaults").withoutThreshold();
+            recording.enable("configuralize.Map").withoutThreshold();
+            recording.start();
+
+            config.saveAllDefaults(); // written
+            config.saveAllDefaults(true); // identical, skipped
+            config.loadAll();
+            config.map(Mapped.class);
+
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> saves = named(events, "configuralize.SaveDefaults");
+        Assert.assertEquals(2, saves.size());
+        Assert.assertTrue(saves.get(0).getBoolean("written"));
+        Assert.assertFalse(saves.get(1).getBoolean("written"));
+        Assert.assertTrue(saves.stream().allMatch(save -> save.getBoolean("success") && save.getString("error") == null));
+        Assert.assertEquals("config", saves.get(0).getString("source"));
+
+        List<RecordedEvent> loads = named(events, "configuralize.Load");
+        Assert.assertFalse(loads.isEmpty());
+        Assert.assertTrue(loads.stream().anyMatch(load -> "yml".equals(load.getString("format"))
+                && load.getLong("bytes") > 0 && load.getInt("keys") > 0));
+
+        List<RecordedEvent> maps = named(events, "configuralize.Map");
+        Assert.assertEquals(1, maps.size());
+        Assert.assertEquals(Mapped.class.getName(), maps.get(0).getClass("mappedClass").getName());
+        Assert.assertEquals(2, maps.get(0).getInt("fields"));
+        Assert.assertTrue(maps.get(0).getBoolean("success"));
+    }
+
+    @Test
+    public void failures() throws IOException {
+        File blocker = new File("jfr-blocker");
+        Files.write(blocker.toPath(), new byte[0]);
+        try (Recording recording = new Recording()) {
+            recording.enable("configuralize.Load").withoutThreshold();
+            recording.enable("configuralize.SaveDefaults").withoutThreshold();
+            recording.start();
+
+            Files.write(new File("config.yml").toPath(), "key: [unterminated".getBytes(StandardCharsets.UTF_8));
+            try {
+                config.loadAll();
+                Assert.fail("Loaded an unparseable file");
+            } catch (ParseException expected) {
+            }
+            DynamicConfig unsaveable = new DynamicConfig();
+            unsaveable.addSource(FlightRecorderTest.class, "messages", new File(blocker, "messages.yml"));
+            try {
+                unsaveable.saveAllDefaults();
+                Assert.fail("Saved under a file");
+            } catch (IOException expected) {
+            }
+
+            recording.stop();
+            recording.dump(dump);
+        } finally {
+            Files.deleteIfExists(blocker.toPath());
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> failedLoads = named(events, "configuralize.Load").stream()
+                .filter(load -> !load.getBoolean("success"))
+                .collect(Collectors.toList());
+        Assert.assertEquals(1, failedLoads.size());
+        Assert.assertEquals("file", failedLoads.get(0).getString("origin"));
+        Assert.assertNotNull(failedLoads.get(0).getString("error"));
+
+        List<RecordedEvent> saves = named(events, "configuralize.SaveDefaults");
+        Assert.assertEquals(1, saves.size());
+        Assert.assertFalse(saves.get(0).getBoolean("success"));
+        Assert.assertTrue(saves.get(0).getString("error").contains("jfr-blocker"));
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+
+    public static class Mapped {
+        @Option(key = "config key") public static String configKey;
+        @Option(key = "config int") public static int configInt;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+        Files.deleteIfExists(dump);
+    }
+
+}
@@ -0,0 +1,19 @@
+package github.scarsz.configuralize.benchmark;
+
+import github.scarsz.configuralize.mapping.Option;
+
+/**
+ * Options mapped by {@link StartupBenchmark}, present in every config {@link ConfigGenerator} generates
+ */
+public class BenchmarkOptions {
+
+    @Option(key = "benchmark.string")
+    public static String string;
+
+    @Option(key = "benchmark.int")
+    public static int integer;
+
+    @Option(key = "benchmark.double")
+    public static double decimal;
+
+}
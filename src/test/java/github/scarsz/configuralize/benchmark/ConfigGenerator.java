@@ -0,0 +1,174 @@
+package github.scarsz.configuralize.benchmark;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.Language;
+import github.scarsz.configuralize.Source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic config resources of a given size and shape, deterministic for a given seed.
+ * <p>
+ * Leaf keys are spread evenly over {@code depth} levels of sections; values cycle through strings, ints,
+ * doubles, booleans and lists of {@code listSize} strings. Every source also gets the keys {@link BenchmarkOptions}
+ * maps, so mapping can be measured against any generated config.
+ */
+public class ConfigGenerator {
+
+    private final long seed;
+    private int keys = 1000;
+    private int depth = 3;
+    private int listSize = 10;
+
+    public ConfigGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public ConfigGenerator keys(int keys) {
+        this.keys = keys;
+        return this;
+    }
+    public ConfigGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+    public ConfigGenerator listSize(int listSize) {
+        this.listSize = listSize;
+        return this;
+    }
+
+    /**
+     * @param index the index of the source to generate, making each source's values different
+     * @return the generated config tree
+     */
+    public Map<String, Object> generate(int index) {
+        Random random = new Random(seed + index);
+        Map<String, Object> root = new LinkedHashMap<>();
+        int fanout = Math.max(2, (int) Math.ceil(Math.pow(keys, 1d / Math.max(depth, 1))));
+
+        for (int i = 0; i < keys; i++) {
+            Map<String, Object> section = root;
+            int remainder = i;
+            for (int level = 1; level < depth; level++) {
+                String name = "section " + (remainder % fanout);
+                remainder /= fanout;
+                section = child(section, name);
+            }
+            section.put("key " + i, value(i, random));
+        }
+
+        Map<String, Object> benchmark = child(root, "benchmark");
+        benchmark.put("string", "mapped value " + index);
+        benchmark.put("int", index);
+        benchmark.put("double", index + 0.5);
+        return root;
+    }
+
+    /**
+     * @return the dotted key of the i-th generated leaf, for looking generated values up
+     */
+    public String key(int i) {
+        int fanout = Math.max(2, (int) Math.ceil(Math.pow(keys, 1d / Math.max(depth, 1))));
+        StringBuilder key = new StringBuilder();
+        int remainder = i;
+        for (int level = 1; level < depth; level++) {
+            key.append("section ").append(remainder % fanout).append('.');
+            remainder /= fanout;
+        }
+        return key.append("key ").append(i).toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> section, String name) {
+        return (Map<String, Object>) section.computeIfAbsent(name, key -> new LinkedHashMap<String, Object>());
+    }
+
+    private Object value(int i, Random random) {
+        switch (i % 5) {
+            case 0: return "value " + Long.toHexString(random.nextLong());
+            case 1: return random.nextInt(100_000);
+            case 2: return random.nextDouble();
+            case 3: return random.nextBoolean();
+            default:
+                List<String> list = new ArrayList<>(listSize);
+                for (int element = 0; element < listSize; element++) list.add("element " + random.nextInt(1_000_000));
+                return list;
+        }
+    }
+
+    /**
+     * Write {@code sources} generated resources into the given directory, for {@link #addSources} to read
+     * @param config the config whose language and codec to write them in
+     * @param directory the directory to write resources to
+     * @param sources how many sources to generate
+     * @param extension the format to write, i.e. "yml" or "json"
+     * @return the size of the largest resource written, in bytes
+     */
+    public long writeResources(DynamicConfig config, File directory, int sources, String extension) throws IOException {
+        long largest = 0;
+        for (int index = 0; index < sources; index++) {
+            File resourceFile = resourceFile(config, directory, index, extension);
+            Files.createDirectories(resourceFile.getParentFile().toPath());
+            try (OutputStream out = Files.newOutputStream(resourceFile.toPath())) {
+                config.getCodec(extension).serialize(generate(index), out);
+            }
+            largest = Math.max(largest, resourceFile.length());
+        }
+        return largest;
+    }
+
+    /**
+     * Add {@code sources} resources previously written by {@link #writeResources} to the config,
+     * each with a file of its own to save defaults to and load values from
+     * @param config the config to add sources to
+     * @param directory the directory the resources were written to, and to put files in
+     * @param sources how many sources to add
+     * @param extension the format the resources were written in, i.e. "yml" or "json"
+     */
+    public void addSources(DynamicConfig config, File directory, int sources, String extension) {
+        for (int index = 0; index < sources; index++) {
+            String resource = "generated" + index;
+            File resourceFile = resourceFile(config, directory, index, extension);
+            config.addSource(new GeneratedSource(config, resource, new File(directory, resource + "." + extension), resourceFile));
+        }
+    }
+
+    private static File resourceFile(DynamicConfig config, File directory, int index, String extension) {
+        return new File(directory, "resources/generated" + index + "/" + config.getLanguage().getCode().toLowerCase() + "." + extension);
+    }
+
+    /**
+     * A source whose bundled defaults are a generated file rather than a classpath resource
+     */
+    static class GeneratedSource extends Source {
+
+        private final File resourceFile;
+
+        GeneratedSource(DynamicConfig config, String resource, File file, File resourceFile) {
+            super(config, ConfigGenerator.class, resource, file);
+            this.resourceFile = resourceFile;
+        }
+
+        @Override
+        public URL getResource(Language language) {
+            if (!getResourcePath(language).endsWith(resourceFile.getName())) return null;
+            try {
+                return resourceFile.toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+    }
+
+}
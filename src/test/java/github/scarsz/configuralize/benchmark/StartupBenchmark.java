@@ -0,0 +1,229 @@
+package github.scarsz.configuralize.benchmark;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.codec.YamlCodec;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures config startup end to end against generated configs of increasing size: saving defaults, loading,
+ * mapping options and the first lookup. For every phase it reports the median wall time over all runs, and the
+ * bytes allocated (by all threads, measured on the heap) and the sum of the heap pools' peak usage of the last run. The pools peak at
+ * different times, so the sum is an upper bound on the heap actually in use at once.
+ * <p>
+ * {@link DynamicConfig#loadAll()} builds the snapshot lookups read from, so "first lookup" measures almost
+ * nothing: reading the snapshot, plus resolving the references of the key looked up, which generated values
+ * don't have.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="--keys 1000,1000000 --formats yml"};
+ * options are {@code --keys}, {@code --depth}, {@code --list-size}, {@code --sources}, {@code --formats},
+ * {@code --runs} and {@code --dir}.
+ */
+public class StartupBenchmark {
+
+    private static final String[] PHASES = {"saveAllDefaults", "loadAll", "map", "first lookup"};
+
+    private final int[] keyCounts;
+    private final int depth;
+    private final int listSize;
+    private final int sources;
+    private final String[] formats;
+    private final int runs;
+    private final File directory;
+
+    public StartupBenchmark(int[] keyCounts, int depth, int listSize, int sources, String[] formats, int runs, File directory) {
+        this.keyCounts = keyCounts;
+        this.depth = depth;
+        this.listSize = listSize;
+        this.sources = sources;
+        this.formats = formats;
+        this.runs = runs;
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException, ParseException {
+        Map<String, String> options = new HashMap<>();
+        List<String> tokens = new ArrayList<>();
+        for (String arg : args) tokens.addAll(Arrays.asList(arg.trim().split("\\s+")));
+        for (int i = 0; i + 1 < tokens.size(); i += 2) options.put(tokens.get(i).replaceFirst("^--", ""), tokens.get(i + 1));
+
+        new StartupBenchmark(
+                Arrays.stream(options.getOrDefault("keys", "1000,10000,100000").split(",")).mapToInt(Integer::parseInt).toArray(),
+                Integer.parseInt(options.getOrDefault("depth", "3")),
+                Integer.parseInt(options.getOrDefault("list-size", "10")),
+                Integer.parseInt(options.getOrDefault("sources", "2")),
+                options.getOrDefault("formats", "yml,json").split(","),
+                Integer.parseInt(options.getOrDefault("runs", "3")),
+                new File(options.getOrDefault("dir", "target/benchmark"))
+        ).run(System.out);
+    }
+
+    public void run(PrintStream out) throws IOException, ParseException {
+        out.printf("%-6s %9s %6s %7s  %-16s %10s %12s %17s%n", "format", "keys", "depth", "sources", "phase", "ms", "alloc MB", "sum pool peak MB");
+        for (String format : formats) {
+            for (int keys : keyCounts) {
+                File runDirectory = new File(directory, format + "-" + keys);
+                delete(runDirectory);
+                ConfigGenerator generator = new ConfigGenerator(keys).keys(keys).depth(depth).listSize(listSize);
+                // resources are generated once, runs only measure reading them
+                long largest = generator.writeResources(new DynamicConfig(), runDirectory, sources, format);
+                // YAML resources are read with a limit sized to them, generated files are trusted
+                int codePointLimit = (int) Math.min(Integer.MAX_VALUE, Math.max(YamlCodec.DEFAULT_CODE_POINT_LIMIT, largest));
+
+                long[][] times = new long[PHASES.length][runs];
+                Measurement[] last = new Measurement[PHASES.length];
+                for (int run = 0; run < runs; run++) {
+                    Measurement[] measurements = measure(generator, runDirectory, format, keys, codePointLimit);
+                    for (int phase = 0; phase < PHASES.length; phase++) times[phase][run] = measurements[phase].nanos;
+                    last = measurements;
+                }
+                for (int phase = 0; phase < PHASES.length; phase++) {
+                    Arrays.sort(times[phase]);
+                    out.printf("%-6s %9d %6d %7d  %-16s %10.2f %12.1f %17.1f%n", format, keys, depth, sources, PHASES[phase],
+                            times[phase][runs / 2] / 1e6, last[phase].allocated / 1048576d, last[phase].poolPeaks / 1048576d);
+                }
+                delete(runDirectory);
+            }
+        }
+        out.println("first lookup: loadAll builds the snapshot, so this is a snapshot read plus resolving the key's references, of which generated values have none");
+    }
+
+    private Measurement[] measure(ConfigGenerator generator, File runDirectory, String format, int keys, int codePointLimit) throws IOException, ParseException {
+        for (int i = 0; i < sources; i++) Files.deleteIfExists(new File(runDirectory, "generated" + i + "." + format).toPath());
+        System.gc();
+
+        DynamicConfig config = new DynamicConfig();
+        config.registerCodec(new YamlCodec(codePointLimit));
+        generator.addSources(config, runDirectory, sources, format);
+        String key = generator.key(keys / 2);
+
+        Measurement[] measurements = new Measurement[PHASES.length];
+        Measurement measurement = Measurement.start();
+        config.saveAllDefaults();
+        measurements[0] = measurement.stop();
+
+        measurement = Measurement.start();
+        config.loadAll();
+        measurements[1] = measurement.stop();
+
+        measurement = Measurement.start();
+        config.map(BenchmarkOptions.class);
+        measurements[2] = measurement.stop();
+
+        measurement = Measurement.start();
+        config.getString(key);
+        measurements[3] = measurement.stop();
+        return measurements;
+    }
+
+    private static void delete(File directory) throws IOException {
+        if (!directory.exists()) return;
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Wall time, bytes allocated across all threads and the sum of the heap pools' peak usage of one phase.
+     * Allocation is measured on the heap, as the growth of its usage plus whatever garbage collections freed in
+     * between, so threads that ended during the phase (like the pool saving defaults) are counted too. Eden is
+     * handed to threads in buffers, so it's accurate to a few buffers per thread.
+     */
+    static final class Measurement {
+
+        private static final List<MemoryPoolMXBean> HEAP = new ArrayList<>();
+        private static final AtomicLong COLLECTED = new AtomicLong();
+        private static final AtomicLong NOTIFIED = new AtomicLong();
+        private static final long INITIAL_COLLECTIONS;
+        static {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) HEAP.add(pool);
+            }
+            INITIAL_COLLECTIONS = collections();
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (!(collector instanceof NotificationEmitter)) continue;
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+                    GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+                    COLLECTED.addAndGet(heapUsed(info.getMemoryUsageBeforeGc()) - heapUsed(info.getMemoryUsageAfterGc()));
+                    NOTIFIED.incrementAndGet();
+                }, null, null);
+            }
+        }
+
+        long nanos;
+        long allocated;
+        long poolPeaks;
+
+        private long startNanos;
+        private long startAllocated;
+
+        static Measurement start() {
+            Measurement measurement = new Measurement();
+            HEAP.forEach(MemoryPoolMXBean::resetPeakUsage);
+            measurement.startAllocated = allocatedBytes();
+            measurement.startNanos = System.nanoTime();
+            return measurement;
+        }
+
+        Measurement stop() {
+            nanos = System.nanoTime() - startNanos;
+            allocated = allocatedBytes() - startAllocated;
+            for (MemoryPoolMXBean pool : HEAP) {
+                poolPeaks += pool.getPeakUsage().getUsed();
+            }
+            return this;
+        }
+
+        /**
+         * @return bytes allocated on the heap since the listeners were registered, not counting the current
+         * contents of thread-local buffers
+         */
+        private static long allocatedBytes() {
+            // collection notifications arrive asynchronously, wait for those of collections that already happened
+            long expected = collections() - INITIAL_COLLECTIONS;
+            long deadline = System.nanoTime() + 1_000_000_000L;
+            while (NOTIFIED.get() < expected && System.nanoTime() < deadline) Thread.yield();
+
+            long used = 0;
+            for (MemoryPoolMXBean pool : HEAP) used += pool.getUsage().getUsed();
+            return used + COLLECTED.get();
+        }
+
+        private static long heapUsed(Map<String, MemoryUsage> usage) {
+            long used = 0;
+            for (MemoryPoolMXBean pool : HEAP) {
+                MemoryUsage poolUsage = usage.get(pool.getName());
+                if (poolUsage != null) used += poolUsage.getUsed();
+            }
+            return used;
+        }
+
+        private static long collections() {
+            long collections = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collections += Math.max(0, collector.getCollectionCount());
+            }
+            return collections;
+        }
+
+    }
+
+}
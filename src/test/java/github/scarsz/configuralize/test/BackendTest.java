@@ -0,0 +1,149 @@
+package github.scarsz.configuralize.test;
+
+import com.sun.net.httpserver.HttpServer;
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Provider;
+import github.scarsz.configuralize.Source;
+import github.scarsz.configuralize.ValidationException;
+import github.scarsz.configuralize.backend.HttpBackend;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BackendTest {
+
+    private HttpServer server;
+    private volatile String content = "config key: remote value\n";
+    private volatile int status = 200;
+    private final AtomicInteger notModified = new AtomicInteger();
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/config.yml", exchange -> {
+            String etag = "\"" + Integer.toHexString(content.hashCode()) + "\"";
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+            } else if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/config.yml");
+        config = new DynamicConfig();
+        config.addSource(BackendTest.class, "config", new File("config.yml"), new HttpBackend(url));
+    }
+
+    @Test
+    public void test() throws IOException, ParseException {
+        config.loadAll();
+        Provider provider = config.getProvider("config");
+        Assert.assertEquals("remote value", config.getString("config key"));
+        Assert.assertEquals(1, config.getInt("config int"));
+
+        // unchanged content is neither transferred nor parsed
+        long generation = config.getGeneration();
+        Assert.assertFalse(provider.refresh());
+        Assert.assertEquals(1, notModified.get());
+        Assert.assertEquals(generation, config.getGeneration());
+
+        content = "config key: changed value\n";
+        Assert.assertTrue(provider.refresh());
+        Assert.assertEquals("changed value", config.getString("config key"));
+
+        // failures and unparseable content keep the last good values
+        status = 500;
+        try {
+            provider.refresh();
+            Assert.fail();
+        } catch (IOException expected) {
+        }
+        status = 200;
+        content = "config key: [unterminated\n";
+        try {
+            provider.refresh();
+            Assert.fail();
+        } catch (ParseException expected) {
+        }
+        Assert.assertEquals("changed value", config.getString("config key"));
+
+        // the file caches the last good content when the backend is unreachable
+        server.stop(0);
+        DynamicConfig offline = new DynamicConfig();
+        offline.addSource(BackendTest.class, "config", new File("config.yml"), new HttpBackend(new URL("http://127.0.0.1:1/config.yml")).timeouts(500, 500));
+        offline.loadAll();
+        Assert.assertEquals("changed value", offline.getString("config key"));
+    }
+
+    @Test
+    public void strictRejection() throws IOException, ParseException {
+        config.setStrictValidation(true);
+        config.loadAll();
+        Provider provider = config.getProvider("config");
+        byte[] cached = Files.readAllBytes(new File("config.yml").toPath());
+
+        // rejected content doesn't replace the cache, and isn't mistaken for the current content next time
+        content = "config int: not a number\n";
+        for (int poll = 0; poll < 2; poll++) {
+            try {
+                provider.refresh();
+                Assert.fail("Applied invalid content in strict mode");
+            } catch (ValidationException expected) {
+            }
+            Assert.assertArrayEquals(cached, Files.readAllBytes(new File("config.yml").toPath()));
+        }
+        Assert.assertEquals(0, notModified.get());
+        Assert.assertEquals("remote value", config.getString("config key"));
+
+        content = "config int: 2\n";
+        Assert.assertTrue(provider.refresh());
+        Assert.assertEquals(2, config.getInt("config int"));
+        Assert.assertEquals(content, new String(Files.readAllBytes(new File("config.yml").toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void polling() throws IOException, ParseException, InterruptedException {
+        config.loadAll();
+        config.startPolling(20, TimeUnit.MILLISECONDS);
+        content = "config key: polled value\n";
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"polled value".equals(config.getString("config key")) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        config.stopPolling();
+        Assert.assertEquals("polled value", config.getString("config key"));
+    }
+
+    @After
+    public void tearDown() {
+        config.stopPolling();
+        server.stop(0);
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
@@ -0,0 +1,94 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import github.scarsz.configuralize.codec.CodecException;
+import github.scarsz.configuralize.codec.FormatCodec;
+import github.scarsz.configuralize.codec.JsonCodec;
+import github.scarsz.configuralize.codec.YamlCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CodecTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() {
+        config = new DynamicConfig();
+    }
+
+    @Test
+    public void builtIn() {
+        Assert.assertTrue(config.getCodec("yml") instanceof YamlCodec);
+        Assert.assertTrue(config.getCodec("YAML") instanceof YamlCodec);
+        Assert.assertTrue(config.getCodec("json") instanceof JsonCodec);
+        Assert.assertNull(config.getCodec("properties"));
+    }
+
+    @Test
+    public void custom() throws IOException, ParseException {
+        config.registerCodec(new PropertiesCodec());
+        config.addSource(CodecTest.class, "settings", new File("settings.properties"));
+        config.saveAllDefaults();
+        config.loadAll();
+
+        Assert.assertEquals("value from properties", config.getString("settings-key"));
+    }
+
+    @Test
+    public void yamlRejectsGlobalTags() throws IOException {
+        YamlCodec codec = new YamlCodec();
+        for (String document : Arrays.asList(
+                "key: !!java.io.File [\"/tmp\"]\n",
+                "!!java.util.Date {}\n",
+                "- not a mapping\n")) {
+            try {
+                codec.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+                Assert.fail("Parsed " + document);
+            } catch (CodecException expected) {
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+    static class PropertiesCodec implements FormatCodec {
+
+        @Override
+        public Collection<String> getExtensions() {
+            return Collections.singletonList("properties");
+        }
+
+        @Override
+        public Map<String, Object> parse(InputStream stream) throws IOException {
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            Map<String, Object> values = new LinkedHashMap<>();
+            properties.stringPropertyNames().forEach(name -> values.put(name, properties.getProperty(name)));
+            return values;
+        }
+
+        @Override
+        public void serialize(Map<String, ?> values, OutputStream stream) throws IOException {
+            Properties properties = new Properties();
+            values.forEach((key, value) -> properties.setProperty(key, String.valueOf(value)));
+            properties.store(new OutputStreamWriter(stream, StandardCharsets.UTF_8), null);
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import github.scarsz.configuralize.benchmark.BenchmarkOptions;
+import github.scarsz.configuralize.benchmark.ConfigGenerator;
+import github.scarsz.configuralize.benchmark.StartupBenchmark;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class ConfigGeneratorTest {
+
+    private final File directory = new File("target/generator-test");
+    private DynamicConfig config;
+
+    @Test
+    public void test() throws IOException, ParseException {
+        ConfigGenerator generator = new ConfigGenerator(1).keys(500).depth(3).listSize(4);
+        Assert.assertEquals(generator.generate(0), new ConfigGenerator(1).keys(500).depth(3).listSize(4).generate(0));
+
+        for (String format : new String[] {"yml", "json"}) {
+            config = new DynamicConfig();
+            generator.writeResources(config, new File(directory, format), 2, format);
+            generator.addSources(config, new File(directory, format), 2, format);
+            config.saveAllDefaults();
+            config.loadAll();
+
+            Assert.assertEquals(4, config.getList(generator.key(4)).size());
+            Assert.assertNotNull(config.get(generator.key(499)));
+            config.map(BenchmarkOptions.class);
+            Assert.assertEquals("mapped value 0", BenchmarkOptions.string);
+            tearDown();
+        }
+    }
+
+    @Test
+    public void benchmark() throws IOException, ParseException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StartupBenchmark(new int[] {1000}, 2, 5, 1, new String[] {"yml"}, 1, directory).run(new PrintStream(out));
+        String report = out.toString();
+        Assert.assertTrue(report, report.contains("loadAll"));
+        Assert.assertTrue(report, report.contains("first lookup"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (config != null) {
+            config.getSources().keySet().stream()
+                    .map(Source::getFile)
+                    .filter(file -> !file.delete())
+                    .forEach(File::deleteOnExit);
+        }
+        if (directory.exists()) {
+            try (Stream<Path> paths = Files.walk(directory.toPath())) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.ConfigNode;
+import github.scarsz.configuralize.ConfigSnapshot;
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+public class ConfigNodeTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(ConfigNodeTest.class, "config", new File("config.yml"));
+        config.addSource(ConfigNodeTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() {
+        ConfigSnapshot snapshot = config.snapshot();
+
+        // lookups hit the index built at load and hand back the same node every time
+        ConfigNode node = snapshot.node("more config keys.inner");
+        Assert.assertSame(node, snapshot.node("more config keys.inner"));
+        Assert.assertEquals("inner value", node.asString());
+
+        Assert.assertEquals(1, snapshot.node("config int").asInt());
+        Assert.assertEquals(1L, snapshot.node("config int").asLong());
+        Assert.assertEquals(1d, snapshot.node("config int").asDouble(), 0);
+        Assert.assertEquals(1, snapshot.node("integer disguised as string").asInt());
+        Assert.assertEquals("1", snapshot.node("more config keys.inner string disguised as integer").asString());
+        Assert.assertEquals("https://example.com/api", snapshot.node("api url").asString());
+
+        ConfigNode section = snapshot.node("more config keys");
+        Assert.assertTrue(section.isMap());
+        Map<String, Object> map = section.asMap();
+        try {
+            map.put("inner", "changed");
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        // getters hand out the node's view instead of copying it
+        Assert.assertSame(map, snapshot.getMap("more config keys"));
+        config.setRuntimeValue("runtime list", Arrays.asList("a", "b"));
+        Assert.assertSame(config.getList("runtime list"), config.getStringList("runtime list"));
+        try {
+            config.getList("runtime list").add("c");
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        // the Dynamic adapter stays available for existing callers
+        Assert.assertEquals("inner value", config.dget("more config keys").dget("inner").asObject());
+
+        Assert.assertTrue(config.node("runtime list").isList());
+        Assert.assertEquals("b", config.node("runtime list").asList().get(1));
+        Assert.assertTrue(ConfigNode.of("on").asBoolean());
+
+        try {
+            snapshot.node("not a key");
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
@@ -0,0 +1,84 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+public class DerivedValueTest {
+
+    private static final AtomicInteger COMPUTED = new AtomicInteger();
+    private static final Function<String, String> SHOUT = value -> {
+        COMPUTED.incrementAndGet();
+        return value.toUpperCase();
+    };
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(DerivedValueTest.class, "config", new File("config.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+        COMPUTED.set(0);
+    }
+
+    @Test
+    public void test() throws IOException, ParseException {
+        Assert.assertEquals("VALUE FROM CONFIG", config.getDerived("config key", SHOUT));
+        Assert.assertEquals("VALUE FROM CONFIG", config.getDerived("config key", SHOUT));
+        Assert.assertEquals(1, COMPUTED.get());
+
+        // changes to other keys don't throw the derived value away
+        config.setRuntimeValue("config int", 2);
+        Assert.assertEquals("VALUE FROM CONFIG", config.getDerived("config key", SHOUT));
+        Assert.assertEquals(1, COMPUTED.get());
+
+        config.setRuntimeValue("config key", "runtime value");
+        Assert.assertEquals("RUNTIME VALUE", config.getDerived("config key", SHOUT));
+        Assert.assertEquals(2, COMPUTED.get());
+        config.clearRuntimeValue("config key");
+
+        Files.write(new File("config.yml").toPath(), "config key: edited value\n".getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+        Assert.assertEquals("EDITED VALUE", config.getDerived("config key", SHOUT));
+        Assert.assertEquals(3, COMPUTED.get());
+
+        config.setRuntimeValue("regex", "^spam+$");
+        Pattern pattern = config.getPattern("regex");
+        Assert.assertSame(pattern, config.getPattern("regex"));
+        Assert.assertTrue(pattern.matcher("spammm").matches());
+
+        config.setRuntimeValue("timeout", "1h30m");
+        Assert.assertEquals(Duration.ofMinutes(90), config.getDuration("timeout"));
+        config.setRuntimeValue("timeout", "PT2S");
+        Assert.assertEquals(Duration.ofSeconds(2), config.getDuration("timeout"));
+        config.setRuntimeValue("timeout", 250);
+        Assert.assertEquals(Duration.ofMillis(250), config.getDuration("timeout"));
+
+        Assert.assertEquals(URI.create("https://example.com/api"), config.getURI("api url"));
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
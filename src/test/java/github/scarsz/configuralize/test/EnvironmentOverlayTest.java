@@ -0,0 +1,94 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.EnvironmentOverlay;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class EnvironmentOverlayTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(EnvironmentOverlayTest.class, "config", new File("config.yml"));
+        config.addSource(EnvironmentOverlayTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("APP_MORE_CONFIG_KEYS_INNER", "inner from env");
+        environment.put("APP_CONFIG_INT", "42");
+        environment.put("APP_CONFIG_DOUBLE", "not a number");
+        environment.put("APP_BLOCKED_WORDS", "eggs, ham");
+        environment.put("APP_BASE_URL", "https://env.example.com");
+        environment.put("APP_NOT_A_KEY", "ignored");
+        environment.put("PATH", "/usr/bin");
+        Properties properties = new Properties();
+        properties.setProperty("app.config-int", "43");
+        properties.setProperty("app.messages-key", "message from property");
+
+        EnvironmentOverlay overlay = new EnvironmentOverlay("APP_", environment, "app.", properties);
+        config.setEnvironmentOverlay(overlay);
+
+        Assert.assertEquals("inner from env", config.getString("more config keys.inner"));
+        // system properties win over the environment, values are converted to the type of the default
+        Assert.assertEquals(43, (int) config.get("config int"));
+        Assert.assertEquals(Arrays.asList("eggs", "ham"), config.getStringList("blocked words"));
+        Assert.assertEquals("message from property", config.getString("messages key"));
+        Assert.assertEquals("https://env.example.com/api", config.getString("api url"));
+        Assert.assertEquals(1d, config.getDouble("config double"), 0);
+        Assert.assertTrue(overlay.getIgnored().containsKey("APP_NOT_A_KEY"));
+        Assert.assertTrue(overlay.getIgnored().containsKey("APP_CONFIG_DOUBLE"));
+
+        // runtime values still take precedence
+        config.setRuntimeValue("config int", 7);
+        Assert.assertEquals(7, config.getInt("config int"));
+
+        config.setEnvironmentOverlay(null);
+        Assert.assertEquals("inner value", config.getString("more config keys.inner"));
+    }
+
+    @Test
+    public void ambiguous() {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("APP_CONFIG", "matches every config key");
+        environment.put("APP_BASE", "https://env.example.com");
+
+        // only the first word counts, so "config key", "config int" and "config double" collide
+        EnvironmentOverlay overlay = new EnvironmentOverlay("APP_", environment, null, new Properties())
+                .normalizer(name -> EnvironmentOverlay.DEFAULT_NORMALIZER.apply(name).split("_")[0]);
+        config.setEnvironmentOverlay(overlay);
+
+        Assert.assertEquals("https://env.example.com", config.getString("base url"));
+        Assert.assertEquals("value from config", config.getString("config key"));
+        Assert.assertEquals(1, config.getInt("config int"));
+        String reason = overlay.getIgnored().get("APP_CONFIG");
+        Assert.assertNotNull(reason);
+        Assert.assertTrue(reason, reason.contains("config int") && reason.contains("config key"));
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
@@ -0,0 +1,122 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.ConfigSnapshot;
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.LongSet;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.PrefixTrie;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class IndexedGetterTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(IndexedGetterTest.class, "config", new File("config.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() {
+        ConfigSnapshot snapshot = config.snapshot();
+
+        Set<String> words = config.getStringSet("blocked words");
+        Assert.assertTrue(words.contains("spam"));
+        Assert.assertFalse(words.contains("scam"));
+        Assert.assertSame(words, config.getStringSet("blocked words"));
+
+        Set<String> caseInsensitive = config.getCaseInsensitiveSet("blocked words");
+        Assert.assertTrue(caseInsensitive.contains("SCAM"));
+        Assert.assertTrue(caseInsensitive.contains("Phishing"));
+        Assert.assertEquals(3, caseInsensitive.size());
+
+        LongSet channels = config.getLongSet("allowed channels");
+        Assert.assertTrue(channels.contains(142));
+        Assert.assertTrue(channels.contains(9007199254740993L));
+        Assert.assertTrue(channels.contains(0));
+        Assert.assertFalse(channels.contains(143));
+        Assert.assertEquals(3, channels.size());
+        Assert.assertSame(channels, snapshot.getLongSet("allowed channels"));
+
+        // whole doubles are fine, anything else can't be matched exactly
+        Assert.assertTrue(LongSet.of(Arrays.asList(5d, new BigDecimal("7.000"))).contains(7));
+        for (Object invalid : Arrays.asList(1.5, new BigDecimal("1e30"), Double.NaN)) {
+            try {
+                LongSet.of(Collections.singletonList(invalid));
+                Assert.fail("Put " + invalid + " in a long set");
+            } catch (NumberFormatException expected) {
+            }
+        }
+
+        PrefixTrie trie = config.getPrefixTrie("blocked words");
+        Assert.assertTrue(trie.matchesPrefixOf("spammer"));
+        Assert.assertEquals("spam", trie.longestPrefixOf("spammer"));
+        Assert.assertFalse(trie.matchesPrefixOf("spa"));
+        Assert.assertTrue(trie.hasEntryStartingWith("phish"));
+        Assert.assertTrue(trie.contains("Scam"));
+        Assert.assertFalse(trie.contains("Sca"));
+
+        // a new snapshot gets freshly built sets
+        config.setRuntimeValue("blocked words", Arrays.asList("eggs"));
+        Assert.assertTrue(config.getStringSet("blocked words").contains("eggs"));
+        Assert.assertFalse(config.getPrefixTrie("blocked words").matchesPrefixOf("spammer"));
+        Assert.assertTrue(snapshot.getStringSet("blocked words").contains("spam"));
+    }
+
+    @Test
+    public void concurrent() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 50; round++) {
+                ConfigSnapshot snapshot = config.snapshot();
+                config.setRuntimeValue("round", round); // the next round gets a fresh snapshot
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object[]>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 8; thread++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return new Object[] {
+                                snapshot.getStringSet("blocked words"),
+                                snapshot.getPrefixTrie("blocked words"),
+                                snapshot.getTemplate("config key")
+                        };
+                    }));
+                }
+                start.countDown();
+                Object[] first = futures.get(0).get();
+                for (Future<Object[]> future : futures) {
+                    Object[] built = future.get();
+                    for (int i = 0; i < first.length; i++) Assert.assertSame(first[i], built[i]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
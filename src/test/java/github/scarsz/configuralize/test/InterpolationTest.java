@@ -0,0 +1,116 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import github.scarsz.configuralize.ValidationException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+public class InterpolationTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(InterpolationTest.class, "config", new File("config.yml"));
+        config.addSource(InterpolationTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() {
+        Assert.assertEquals("https://example.com/api", config.getString("api url"));
+
+        // references span sources and runtime values, and chain
+        config.setRuntimeValue("users url", "${api url}/users?lang=${messages key}&int=${config int}");
+        Assert.assertEquals("https://example.com/api/users?lang=value from messages&int=1", config.getString("users url"));
+
+        config.setRuntimeValue("base url", "http://localhost");
+        Assert.assertEquals("http://localhost/api", config.getString("api url"));
+
+        config.setRuntimeValue("literal", "$${not a reference} ${missing key}");
+        Assert.assertEquals("${not a reference} ${missing key}", config.getString("literal"));
+    }
+
+    @Test
+    public void circular() {
+        config.setRuntimeValue("a", "${b}");
+        config.setRuntimeValue("b", "${c}");
+        config.setRuntimeValue("c", "${a}");
+        config.setRuntimeValue("refers to cycle", "a is ${a}");
+
+        // unrelated keys still resolve
+        Assert.assertEquals("https://example.com/api", config.getString("api url"));
+        Assert.assertEquals(1, config.getInt("config int"));
+
+        // keys in the cycle keep their raw values, references to them stay as written
+        Assert.assertEquals("${b}", config.getString("a"));
+        Assert.assertEquals("${a}", config.getString("c"));
+        Assert.assertEquals("a is ${a}", config.getString("refers to cycle"));
+        Assert.assertEquals(1, config.getInterpolationErrors().size());
+        Assert.assertTrue(config.getInterpolationErrors().get(0).startsWith("Circular reference between config keys"));
+
+        config.setRuntimeValue("c", "end");
+        Assert.assertEquals("end", config.getString("a"));
+        Assert.assertTrue(config.getInterpolationErrors().isEmpty());
+    }
+
+    @Test
+    public void nested() throws IOException, ParseException {
+        Files.write(new File("config.yml").toPath(), (
+                "section:\n" +
+                "  x: plain\n" +
+                "  y: ${base url}-suffix\n" +
+                "list:\n" +
+                "  - ${api url}\n" +
+                "  - plain\n"
+        ).getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+
+        // getters agree with each other whichever way the value is reached
+        Map<String, Object> section = config.getMap("section");
+        Assert.assertEquals("https://example.com-suffix", section.get("y"));
+        Assert.assertEquals("plain", section.get("x"));
+        Assert.assertEquals("https://example.com-suffix", config.getString("section.y"));
+        Assert.assertEquals(Arrays.asList("https://example.com/api", "plain"), config.getList("list"));
+        Assert.assertEquals("https://example.com/api", config.getString("list.0"));
+    }
+
+    @Test
+    public void circularOnLoad() throws IOException, ParseException {
+        Files.write(new File("config.yml").toPath(), "a: ${b}\nb: [\"${a}\"]\n".getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+        Assert.assertEquals(1, config.getInterpolationErrors().size());
+
+        config.setStrictValidation(true);
+        Files.write(new File("config.yml").toPath(), "a: ${b}\nb: ${a}\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            config.loadAll();
+            Assert.fail("Loaded circular references in strict mode");
+        } catch (ValidationException e) {
+            Assert.assertEquals(1, e.getErrors().size());
+            Assert.assertTrue(e.getErrors().get(0).startsWith("Circular reference between config keys"));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
@@ -0,0 +1,111 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.codec.CodecException;
+import github.scarsz.configuralize.codec.JsonCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@SuppressWarnings("unchecked")
+public class JsonCodecTest {
+
+    private final JsonCodec codec = new JsonCodec();
+
+    @Test
+    public void parse() throws IOException, CodecException {
+        Map<String, Object> parsed = codec.parse(new StringReader(
+                "{\"string\": \"a \\\"quoted\\\"\\n\\u00e9 value\", \"int\": -12, \"long\": 12345678901, \"double\": 1.5e2,"
+                        + " \"bool\": true, \"null\": null, \"list\": [1, \"two\", [], {}],"
+                        + " \"section\": {\"inner\": {\"list\": [{\"inner\": false}]}}}"
+        ));
+
+        Assert.assertEquals("a \"quoted\"\né value", parsed.get("string"));
+        Assert.assertEquals(-12L, parsed.get("int"));
+        Assert.assertEquals(12345678901L, parsed.get("long"));
+        Assert.assertEquals(150d, parsed.get("double"));
+        Assert.assertEquals(true, parsed.get("bool"));
+        Assert.assertTrue(parsed.containsKey("null"));
+        Assert.assertEquals(4, ((List<Object>) parsed.get("list")).size());
+
+        // repeated keys share one instance
+        Map<String, Object> section = (Map<String, Object>) ((Map<String, Object>) parsed.get("section")).get("inner");
+        Map<String, Object> element = ((List<Map<String, Object>>) section.get("list")).get(0);
+        String outer = parsed.keySet().stream().filter("section"::equals).findFirst().get();
+        String nested = ((Map<String, Object>) parsed.get("section")).keySet().iterator().next();
+        Assert.assertSame(nested, element.keySet().iterator().next());
+        Assert.assertSame("section", outer);
+    }
+
+    @Test
+    public void roundTrip() throws IOException, CodecException {
+        Map<String, Object> parsed = codec.parse(new StringReader("{\"a\": {\"b\": [1, 2.5, \"tab\\tnewline\\n\"], \"c\": null}}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.serialize(parsed, out);
+        Assert.assertEquals(parsed, codec.parse(new StringReader(out.toString("UTF-8"))));
+        Assert.assertEquals(Arrays.asList(1L, 2.5, "tab\tnewline\n"), ((Map<String, Object>) parsed.get("a")).get("b"));
+    }
+
+    @Test
+    public void numbers() throws IOException, CodecException {
+        Map<String, Object> parsed = codec.parse(new StringReader(
+                "{\"zero\": 0, \"negative zero\": -0, \"small\": 7, \"max\": 9223372036854775807,"
+                        + " \"min\": -9223372036854775808, \"huge\": 92233720368547758070, \"fraction\": 0.25, \"exponent\": -1E+2}"
+        ));
+        Assert.assertEquals(0L, parsed.get("zero"));
+        Assert.assertEquals(0L, parsed.get("negative zero"));
+        Assert.assertEquals(7L, parsed.get("small"));
+        Assert.assertEquals(Long.MAX_VALUE, parsed.get("max"));
+        Assert.assertEquals(Long.MIN_VALUE, parsed.get("min"));
+        Assert.assertEquals(new BigDecimal("92233720368547758070"), parsed.get("huge"));
+        Assert.assertEquals(0.25, parsed.get("fraction"));
+        Assert.assertEquals(-100d, parsed.get("exponent"));
+    }
+
+    @Test
+    public void byteBuffer() throws CodecException {
+        byte[] bytes = "{\"key\": \"välue\", \"list\": [1, 2]}".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> parsed = codec.parse(ByteBuffer.wrap(bytes));
+        Assert.assertEquals("välue", parsed.get("key"));
+        Assert.assertEquals(Arrays.asList(1L, 2L), parsed.get("list"));
+    }
+
+    @Test
+    public void errors() {
+        for (String invalid : Arrays.asList("{", "{\"a\" 1}", "{\"a\": tru}", "[1, 2]", "{\"a\": 1} x", "{\"a\": \"unterminated}",
+                "{\"a\": 01}", "{\"a\": -01}", "{\"a\": -}", "{\"a\": 1.}", "{\"a\": .5}", "{\"a\": 1e}", "{\"a\": 1.5.2}")) {
+            try {
+                codec.parse(new StringReader(invalid));
+                Assert.fail("Parsed invalid JSON " + invalid);
+            } catch (CodecException | IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void depthLimit() throws IOException, CodecException {
+        StringBuilder shallow = new StringBuilder("{\"a\": ");
+        for (int i = 0; i < 500; i++) shallow.append('[');
+        for (int i = 0; i < 500; i++) shallow.append(']');
+        Assert.assertTrue(codec.parse(new StringReader(shallow.append('}').toString())).containsKey("a"));
+
+        StringBuilder deep = new StringBuilder("{\"a\": ");
+        for (int i = 0; i < 10000; i++) deep.append('[');
+        for (int i = 0; i < 10000; i++) deep.append(']');
+        try {
+            codec.parse(new StringReader(deep.append('}').toString()));
+            Assert.fail("Parsed JSON nested 10000 levels deep");
+        } catch (CodecException expected) {
+            Assert.assertTrue(expected.getMessage().startsWith("Nested deeper than"));
+        }
+    }
+
+}
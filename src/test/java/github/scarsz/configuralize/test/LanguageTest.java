@@ -0,0 +1,57 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.Language;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class LanguageTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException {
+        config = new DynamicConfig();
+        config.addSource(LanguageTest.class, "config", new File("config.yml"));
+        config.addSource(LanguageTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+    }
+
+    @Test
+    public void test() throws IOException, ParseException {
+        config.loadAll();
+
+        Assert.assertEquals("value from messages", config.getString("messages key"));
+        Assert.assertEquals("valeur des messages", config.getString("messages key", Language.FR));
+        // not translated, falls back to the loaded values
+        Assert.assertEquals("value from config", config.getString("config key", Language.FR));
+        Assert.assertEquals("value from messages", config.getString("messages key", Language.DE));
+        Assert.assertSame(config.snapshot(Language.FR), config.snapshot(Language.FR));
+    }
+
+    @Test
+    public void customized() throws IOException, ParseException {
+        Files.write(new File("messages.yml").toPath(), "messages key: customized message".getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+
+        Assert.assertEquals("customized message", config.getString("messages key", Language.FR));
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
@@ -5,6 +5,9 @@ import github.scarsz.configuralize.ParseException;
 import github.scarsz.configuralize.Source;
 import github.scarsz.configuralize.mapping.MappingFunction;
 import github.scarsz.configuralize.mapping.Option;
+import github.scarsz.configuralize.mapping.OptionMapper;
+import github.scarsz.configuralize.mapping.OptionMappers;
+import github.scarsz.configuralize.mapping.ReflectiveOptionMapper;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -12,6 +15,8 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 public class MappedClassTest {
 
@@ -42,6 +47,59 @@ public class MappedClassTest {
         Assert.assertEquals("value from messages", MappedConfig.messagesOption);
     }
 
+    @Test
+    public void generatedMappers() throws IOException, ParseException {
+        config.saveAllDefaults();
+        config.loadAll();
+
+        // classes with assignable options get a compile-time mapper, others are still mapped reflectively
+        Assert.assertNotNull(OptionMappers.get(MappedConfig.class));
+        Assert.assertNotNull(OptionMappers.get(MappedConfig.Inner.class));
+        Assert.assertNull(OptionMappers.get(ReflectiveConfig.class));
+
+        config.map(ReflectiveConfig.class);
+        Assert.assertEquals("value from config", ReflectiveConfig.configOption);
+        Assert.assertEquals(1L, ReflectiveConfig.getConfigLong());
+    }
+
+    @Test
+    public void sameConversions() throws IOException, ParseException {
+        config.saveAllDefaults();
+        config.loadAll();
+        OptionMapper generated = OptionMappers.get(ConvertedConfig.class);
+        Assert.assertNotNull(generated);
+
+        generated.map(config, null);
+        List<Object> generatedValues = ConvertedConfig.values();
+        ConvertedConfig.reset();
+        new ReflectiveOptionMapper(ConvertedConfig.class).map(config, null);
+        Assert.assertEquals(generatedValues, ConvertedConfig.values());
+        Assert.assertEquals(Arrays.asList(1, 1, 1L, 1L, 1d, 1d, "1", "1", Arrays.asList("https://example.com/api"), null, null, null), generatedValues);
+    }
+
+    @Test
+    public void missingKeys() throws IOException, ParseException {
+        config.saveAllDefaults();
+        config.loadAll();
+
+        // boxed and other reference options are optional, primitives can't hold a missing value
+        for (OptionMapper mapper : Arrays.asList(OptionMappers.get(ConvertedConfig.class), new ReflectiveOptionMapper(ConvertedConfig.class))) {
+            ConvertedConfig.boxedMissing = 1;
+            ConvertedConfig.stringMissing = "set";
+            mapper.map(config, null);
+            Assert.assertNull(ConvertedConfig.boxedMissing);
+            Assert.assertNull(ConvertedConfig.stringMissing);
+        }
+        for (OptionMapper mapper : Arrays.asList(OptionMappers.get(MissingPrimitiveConfig.class), new ReflectiveOptionMapper(MissingPrimitiveConfig.class))) {
+            try {
+                mapper.map(config, null);
+                Assert.fail("Mapped a missing key to a primitive");
+            } catch (RuntimeException e) {
+                Assert.assertEquals("Failed to map key not a key", e.getMessage());
+            }
+        }
+    }
+
     @After
     public void tearDown() {
         config.getSources().keySet().stream()
@@ -79,4 +137,84 @@ public class MappedClassTest {
 
     }
 
+    static class ConvertedConfig {
+
+        @Option(key = "config int")
+        static int anInt;
+
+        @Option(key = "integer disguised as string")
+        static Integer boxedInt;
+
+        @Option(key = "config int")
+        static long aLong;
+
+        @Option(key = "config int")
+        static Long boxedLong;
+
+        @Option(key = "config int")
+        static double aDouble;
+
+        @Option(key = "config int")
+        static Double boxedDouble;
+
+        @Option(key = "integer disguised as string")
+        static Object raw;
+
+        @Option(key = "config int")
+        static String string;
+
+        @Option(key = "api url")
+        static List<String> list;
+
+        @Option(key = "not a key")
+        static Integer boxedMissing;
+
+        @Option(key = "not a key")
+        static String stringMissing;
+
+        @Option(key = "not a key")
+        static Object rawMissing;
+
+        static List<Object> values() {
+            return Arrays.asList(anInt, boxedInt, aLong, boxedLong, aDouble, boxedDouble, raw, string, list, boxedMissing, stringMissing, rawMissing);
+        }
+
+        static void reset() {
+            anInt = 0;
+            boxedInt = null;
+            aLong = 0;
+            boxedLong = null;
+            aDouble = 0;
+            boxedDouble = null;
+            raw = null;
+            string = null;
+            list = null;
+            boxedMissing = null;
+            stringMissing = null;
+            rawMissing = null;
+        }
+
+    }
+
+    static class MissingPrimitiveConfig {
+
+        @Option(key = "not a key")
+        static int missing;
+
+    }
+
+    static class ReflectiveConfig {
+
+        @Option(key = "config key")
+        static String configOption;
+
+        @Option(key = "config int")
+        private static long configLong;
+
+        static long getConfigLong() {
+            return configLong;
+        }
+
+    }
+
 }
@@ -0,0 +1,138 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.ConfigView;
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.MappedConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+@SuppressWarnings("unchecked")
+public class MappedConfigTest {
+
+    private final File exported = new File("config.bin");
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(MappedConfigTest.class, "config", new File("config.yml"));
+        config.addSource(MappedConfigTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() throws IOException {
+        for (int i = 0; i < 5000; i++) config.setRuntimeValue("generated." + i, i % 2 == 0 ? "value " + i : i);
+        config.setRuntimeValue("flag", true);
+        config.setRuntimeValue("list", Arrays.asList("a", 1, 2.5));
+        config.export(exported);
+
+        MappedConfig mapped = MappedConfig.open(exported);
+        Assert.assertEquals(config.snapshot().getKeys().size(), mapped.size());
+        for (int i = 0; i < 5000; i++) {
+            if (i % 2 == 0) {
+                Assert.assertEquals("value " + i, mapped.getString("generated." + i));
+            } else {
+                Assert.assertEquals(i, mapped.getInt("generated." + i));
+            }
+        }
+        Assert.assertEquals("value from config", mapped.getString("config key"));
+        Assert.assertEquals("value from messages", mapped.getString("messages key"));
+        Assert.assertEquals(1, mapped.getInt("config int"));
+        Assert.assertEquals(1d, mapped.getDouble("config double"), 0);
+        Assert.assertEquals(1, mapped.getInt("integer disguised as string"));
+        Assert.assertEquals("https://example.com/api", mapped.getString("api url"));
+        Assert.assertTrue(mapped.getBoolean("flag"));
+        Assert.assertEquals(Arrays.asList("a", 1, 2.5), mapped.getList("list"));
+        Map<String, Object> section = mapped.getMap("more config keys");
+        Assert.assertEquals("inner value", section.get("inner"));
+        Assert.assertEquals("inner value", mapped.getString("more config keys.inner"));
+
+        Assert.assertFalse(mapped.containsKey("missing key"));
+        Assert.assertEquals("otherwise", mapped.getStringElse("missing key", "otherwise"));
+    }
+
+    @Test
+    public void numbers() throws IOException {
+        config.setRuntimeValue("big", 1L << 40);
+        config.setRuntimeValue("whole", 3d);
+        config.setRuntimeValue("fraction", 2.5);
+        config.export(exported);
+
+        MappedConfig mapped = MappedConfig.open(exported);
+        Assert.assertEquals(1L << 40, mapped.getLong("big"));
+        Assert.assertEquals(3, mapped.getInt("whole"));
+        Assert.assertEquals(3L, mapped.getLong("whole"));
+        Assert.assertEquals(3, config.getInt("whole"));
+        Assert.assertEquals(3L, config.getLong("whole"));
+        // the exported config and the live one agree on what can't be read as an int
+        for (ConfigView view : Arrays.asList(mapped, config, config.snapshot())) {
+            for (String key : Arrays.asList("big", "fraction")) {
+                try {
+                    view.getInt(key);
+                    Assert.fail("Narrowed " + key + " to an int");
+                } catch (ArithmeticException expected) {
+                }
+            }
+        }
+        Assert.assertEquals(-1, mapped.getIntElse("fraction", -1));
+    }
+
+    @Test
+    public void sections() throws IOException, ParseException {
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        Files.write(new File("config.yml").toPath(), ("a:\n  b:\n    c:\n      d: " + large + "\n").getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+        config.setRuntimeValue("a.b.c.d", "runtime value");
+        config.export(exported);
+
+        // the large value is stored once, not once for every section it's nested in
+        Assert.assertTrue(exported.length() < large.length() * 2);
+        MappedConfig mapped = MappedConfig.open(exported);
+        Assert.assertEquals("runtime value", mapped.getString("a.b.c.d"));
+        Map<String, Object> section = mapped.getMap("a.b");
+        Assert.assertEquals(config.getMap("a.b"), section);
+        Assert.assertEquals(large, ((Map<String, Object>) section.get("c")).get("d"));
+    }
+
+    @Test
+    public void nulls() throws IOException, ParseException {
+        Files.write(new File("config.yml").toPath(), "nothing: ~\nsection:\n  empty: ~\n  set: value\n".getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+        config.export(exported);
+
+        // like the snapshot, null values can't be looked up by key but stay in their sections
+        MappedConfig mapped = MappedConfig.open(exported);
+        Assert.assertFalse(mapped.containsKey("nothing"));
+        Assert.assertFalse(mapped.containsKey("section.empty"));
+        Assert.assertEquals("value", mapped.getString("section.set"));
+        Map<String, Object> section = mapped.getMap("section");
+        Assert.assertTrue(section.containsKey("empty"));
+        Assert.assertNull(section.get("empty"));
+        Assert.assertEquals(config.getMap("section"), section);
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+        if (!exported.delete()) exported.deleteOnExit();
+    }
+
+}
@@ -0,0 +1,125 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.ConfigSnapshot;
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RuntimeOverrideTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(RuntimeOverrideTest.class, "config", new File("config.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() throws InterruptedException {
+        config.setRuntimeValue("config key", "temporary value", 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals("temporary value", config.getString("config key"));
+        Assert.assertEquals("temporary value", config.getString("config key"));
+
+        // expiry is seen by the next lookup without anything else changing
+        Thread.sleep(150);
+        Assert.assertEquals("value from config", config.getString("config key"));
+        Assert.assertFalse(config.getRuntimeValues().containsKey("config key"));
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("config key", "bulk value");
+        values.put("config int", 5);
+        config.setRuntimeValues(values);
+        Assert.assertEquals("bulk value", config.getString("config key"));
+        Assert.assertEquals(5, config.getInt("config int"));
+        // references resolve against overrides too
+        config.setRuntimeValue("base url", "https://override.example.com");
+        Assert.assertEquals("https://override.example.com/api", config.getString("api url"));
+
+        Assert.assertTrue(config.clearRuntimeValue("config key"));
+        Assert.assertFalse(config.clearRuntimeValue("config key"));
+        Assert.assertEquals("value from config", config.getString("config key"));
+        config.clearRuntimeValues(Arrays.asList("config int", "not set"));
+        Assert.assertEquals(1, config.getInt("config int"));
+        config.clearRuntimeValues();
+        Assert.assertTrue(config.getRuntimeValues().isEmpty());
+        Assert.assertEquals("https://example.com/api", config.getString("api url"));
+    }
+
+    @Test
+    public void concurrent() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int id = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2500; i++) {
+                    config.setRuntimeValue("key " + id + "." + i, i);
+                    // a thread always reads its own write
+                    Assert.assertEquals(i, config.getInt("key " + id + "." + i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+
+        Assert.assertEquals(20000, config.getRuntimeValues().size());
+        Assert.assertEquals(2499, config.getInt("key 7.2499"));
+    }
+
+    @Test
+    public void atomicBatches() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int thread = 0; thread < 3; thread++) {
+            readers.add(executor.submit(() -> {
+                while (writing.get()) {
+                    // a batch is seen entirely or not at all
+                    ConfigSnapshot snapshot = config.snapshot();
+                    Assert.assertEquals(snapshot.getIntElse("batch a", -1), snapshot.getIntElse("batch b", -1));
+                }
+            }));
+        }
+        for (int i = 0; i < 5000; i++) {
+            Map<String, Object> batch = new LinkedHashMap<>();
+            batch.put("batch a", i);
+            batch.put("batch b", i);
+            config.setRuntimeValues(batch);
+            if (i % 2 == 0) config.clearRuntimeValues(batch.keySet());
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) reader.get();
+        executor.shutdown();
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
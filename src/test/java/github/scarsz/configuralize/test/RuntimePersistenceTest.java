@@ -0,0 +1,163 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class RuntimePersistenceTest {
+
+    private final File sidecar = new File("runtime.yml");
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException {
+        config = new DynamicConfig();
+        config.addSource(RuntimePersistenceTest.class, "config", new File("config.yml"));
+        config.addSource(RuntimePersistenceTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+    }
+
+    @Test
+    public void sidecar() throws IOException, ParseException, InterruptedException {
+        config.loadAll();
+        config.enableRuntimePersistence(sidecar, 50, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 1000; i++) {
+            config.setRuntimeValue("config int", i);
+        }
+        config.setRuntimeValue("more config keys.inner", "runtime value");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!sidecar.exists() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        Assert.assertTrue(sidecar.exists());
+
+        DynamicConfig restored = new DynamicConfig();
+        restored.addSource(RuntimePersistenceTest.class, "config", new File("config.yml"));
+        restored.loadAll();
+        restored.enableRuntimePersistence(sidecar, 50, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(999, restored.getInt("config int"));
+        Assert.assertEquals("runtime value", restored.getString("more config keys.inner"));
+    }
+
+    @Test
+    public void source() throws IOException, ParseException {
+        config.loadAll();
+        config.enableRuntimePersistence(1, TimeUnit.MINUTES);
+        config.setRuntimeValue("more config keys.inner", "runtime value");
+        config.setRuntimeValue("messages key", "runtime message");
+        config.flushRuntimeValues();
+
+        DynamicConfig reloaded = new DynamicConfig();
+        reloaded.addSource(RuntimePersistenceTest.class, "config", new File("config.yml"));
+        reloaded.addSource(RuntimePersistenceTest.class, "messages", new File("messages.yml"));
+        reloaded.loadAll();
+        Assert.assertEquals("runtime value", reloaded.getString("more config keys.inner"));
+        Assert.assertEquals("runtime message", reloaded.getString("messages key"));
+        Assert.assertEquals("value from config", reloaded.getString("config key"));
+    }
+
+    @Test
+    public void temporaryReplacesPersisted() throws IOException, ParseException {
+        config.loadAll();
+        config.enableRuntimePersistence(sidecar, 1, TimeUnit.MINUTES);
+        config.setRuntimeValue("config int", 5);
+        config.setRuntimeValue("config key", "persisted");
+        config.flushRuntimeValues();
+
+        // a temporary value isn't persisted and must not leave the value it replaced behind
+        config.setRuntimeValue("config int", 6, 1, TimeUnit.MINUTES);
+        config.flushRuntimeValues();
+        DynamicConfig restored = new DynamicConfig();
+        restored.addSource(RuntimePersistenceTest.class, "config", new File("config.yml"));
+        restored.loadAll();
+        restored.enableRuntimePersistence(sidecar, 1, TimeUnit.MINUTES);
+        Assert.assertEquals(1, restored.getInt("config int"));
+        Assert.assertEquals("persisted", restored.getString("config key"));
+    }
+
+    @Test
+    public void clearedSourceValueIsReverted() throws IOException, ParseException {
+        config.loadAll();
+        config.enableRuntimePersistence(1, TimeUnit.MINUTES);
+        config.setRuntimeValue("config key", "runtime value");
+        config.setRuntimeValue("runtime only key", "runtime value");
+        config.flushRuntimeValues();
+        Assert.assertEquals("runtime value", reload().getString("config key"));
+
+        config.clearRuntimeValue("config key");
+        config.clearRuntimeValue("runtime only key");
+        config.flushRuntimeValues();
+        DynamicConfig reloaded = reload();
+        Assert.assertEquals("value from config", reloaded.getString("config key"));
+        Assert.assertFalse(reloaded.getOptionalString("runtime only key").isPresent());
+    }
+
+    @Test
+    public void steadyChangesAreWrittenAfterMaxWait() throws IOException, ParseException, InterruptedException {
+        config.loadAll();
+        config.enableRuntimePersistence(sidecar, 200, 300, TimeUnit.MILLISECONDS);
+        long deadline = System.currentTimeMillis() + 5000;
+        for (int i = 0; !sidecar.exists() && System.currentTimeMillis() < deadline; i++) {
+            // every change comes well within the debounce period of the last
+            config.setRuntimeValue("config int", i);
+            Thread.sleep(20);
+        }
+        Assert.assertTrue(sidecar.exists());
+    }
+
+    @Test
+    public void replacingFlushesPending() throws IOException, ParseException {
+        config.loadAll();
+        config.enableRuntimePersistence(sidecar, 1, TimeUnit.MINUTES);
+        config.setRuntimeValue("config int", 5);
+        config.enableRuntimePersistence(1, TimeUnit.MINUTES);
+        Assert.assertTrue(sidecar.exists());
+    }
+
+    @Test
+    public void failure() throws IOException, ParseException, InterruptedException {
+        File unwritable = new File("missing directory" + File.separator + "runtime.yml");
+        config.loadAll();
+        config.enableRuntimePersistence(unwritable, 10, TimeUnit.MILLISECONDS);
+        config.setRuntimeValue("config int", 5);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (config.getLastPersistenceFailure() == null && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        Assert.assertTrue(config.getLastPersistenceFailure() instanceof IOException);
+
+        // the pending change is flushed first, and handed over when that fails again
+        try {
+            config.enableRuntimePersistence(sidecar, 1, TimeUnit.MINUTES);
+            Assert.fail("Flushing to the unwritable file should fail");
+        } catch (IOException ignored) {}
+        config.shutdown();
+        Assert.assertTrue(sidecar.exists());
+        Assert.assertNull(config.getLastPersistenceFailure());
+    }
+
+    private DynamicConfig reload() throws IOException, ParseException {
+        DynamicConfig reloaded = new DynamicConfig();
+        reloaded.addSource(RuntimePersistenceTest.class, "config", new File("config.yml"));
+        reloaded.addSource(RuntimePersistenceTest.class, "messages", new File("messages.yml"));
+        reloaded.loadAll();
+        return reloaded;
+    }
+
+    @After
+    public void tearDown() throws IOException, ParseException {
+        config.disableRuntimePersistence();
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+        if (!sidecar.delete()) sidecar.deleteOnExit();
+    }
+
+}
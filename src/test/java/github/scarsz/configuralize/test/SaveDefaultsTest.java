@@ -0,0 +1,125 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.Provider;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+public class SaveDefaultsTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() {
+        config = new DynamicConfig();
+        config.addSource(SaveDefaultsTest.class, "config", new File("config.yml"));
+        config.addSource(SaveDefaultsTest.class, "messages", new File("messages.yml"));
+    }
+
+    @Test
+    public void test() throws IOException {
+        config.saveAllDefaults();
+        Provider provider = config.getProvider("config");
+
+        // identical file on disk, nothing to write
+        Assert.assertFalse(provider.saveDefaultsIfChanged(true));
+
+        // modified file on disk, overwritten only when asked to
+        File file = provider.getSource().getFile();
+        Files.write(file.toPath(), "config key: modified".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(provider.saveDefaultsIfChanged(false));
+        Assert.assertTrue(provider.saveDefaultsIfChanged(true));
+        Assert.assertArrayEquals(
+                Files.readAllBytes(new File(SaveDefaultsTest.class.getResource("/config/en.yml").getFile()).toPath()),
+                Files.readAllBytes(file.toPath())
+        );
+    }
+
+    @Test
+    public void permissions() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path file = new File("config.yml").toPath();
+
+        // new files get the same permissions as any other file created here
+        Path reference = Files.createFile(new File("permissions-reference").toPath());
+        try {
+            config.saveAllDefaults();
+            Assert.assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(file));
+        } finally {
+            Files.delete(reference);
+        }
+
+        // replaced files keep theirs
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.write(file, "config key: modified".getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(file, permissions);
+        Assert.assertTrue(config.getProvider("config").saveDefaultsIfChanged(true));
+        Assert.assertEquals(permissions, Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    public void failingSourceDoesNotStopOthers() throws IOException {
+        File blocker = new File("save-blocker");
+        Files.write(blocker.toPath(), new byte[0]);
+        try {
+            // the parent "directory" is a plain file, so this source can't be saved
+            config.addSource(SaveDefaultsTest.class, "settings", new File(blocker, "settings.properties"));
+            try {
+                config.saveAllDefaults();
+                Assert.fail("Saving under a file should fail");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("save-blocker"));
+            }
+            Assert.assertTrue(new File("config.yml").exists());
+            Assert.assertTrue(new File("messages.yml").exists());
+        } finally {
+            Files.deleteIfExists(blocker.toPath());
+        }
+    }
+
+    @Test
+    public void allFailuresAreCollected() throws IOException {
+        File blocker = new File("save-blocker");
+        Files.write(blocker.toPath(), new byte[0]);
+        try {
+            // no bundled resource, fails with a runtime exception before the IO failure below
+            config.addSource(SaveDefaultsTest.class, "missing", new File("missing.yml"));
+            config.addSource(SaveDefaultsTest.class, "settings", new File(blocker, "settings.properties"));
+            try {
+                config.saveAllDefaults();
+                Assert.fail("Saving a source without a resource should fail");
+            } catch (NullPointerException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Unknown resource"));
+                Assert.assertEquals(1, e.getSuppressed().length);
+                Assert.assertTrue(e.getSuppressed()[0] instanceof IOException);
+            }
+            Assert.assertTrue(new File("config.yml").exists());
+            Assert.assertTrue(new File("messages.yml").exists());
+        } finally {
+            Files.deleteIfExists(blocker.toPath());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
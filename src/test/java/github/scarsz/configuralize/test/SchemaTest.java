@@ -0,0 +1,83 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import github.scarsz.configuralize.ValidationException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class SchemaTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException {
+        config = new DynamicConfig();
+        config.addSource(SchemaTest.class, "config", new File("config.yml"));
+        Files.write(new File("config.yml").toPath(), (
+                "config key: 5\n" +
+                "config int: not a number\n" +
+                "config double: \"2\"\n" +
+                "more config keys: a string\n"
+        ).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void lenient() throws IOException, ParseException {
+        config.loadAll();
+
+        Assert.assertEquals(2, config.getValidationErrors().size());
+        Assert.assertEquals("5", config.get("config key"));
+        Assert.assertEquals(1, config.getInt("config int"));
+        Assert.assertEquals(2d, (double) config.get("config double"), 0);
+        Assert.assertEquals("inner value", config.getString("more config keys.inner"));
+    }
+
+    @Test
+    public void strict() throws IOException, ParseException {
+        config.setStrictValidation(true);
+        try {
+            config.loadAll();
+            Assert.fail("Loaded invalid config in strict mode");
+        } catch (ValidationException e) {
+            Assert.assertEquals(2, e.getErrors().size());
+            Assert.assertTrue(e.getErrors().get(0).startsWith("config.yml: config int:"));
+        }
+        // nothing of the rejected load was applied
+        Assert.assertTrue(config.getValidationErrors().isEmpty());
+        Assert.assertNull(config.getProvider("config").getValues());
+    }
+
+    @Test
+    public void intWidth() throws IOException, ParseException {
+        Files.write(new File("config.yml").toPath(), (
+                "config int: 2147483648\n" +
+                "more config keys:\n" +
+                "  inner string disguised as integer: -2147483648\n"
+        ).getBytes(StandardCharsets.UTF_8));
+        config.loadAll();
+
+        // beyond the range of the int default, so the default applies and reading it as an int can't fail
+        Assert.assertEquals(1, config.getValidationErrors().size());
+        Assert.assertTrue(config.getValidationErrors().get(0).startsWith("config.yml: config int: expected an integer from"));
+        Assert.assertEquals(1, config.getInt("config int"));
+        Assert.assertEquals(Integer.MIN_VALUE, config.getInt("more config keys.inner string disguised as integer"));
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
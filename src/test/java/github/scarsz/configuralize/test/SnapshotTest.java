@@ -0,0 +1,57 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.ConfigSnapshot;
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class SnapshotTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(SnapshotTest.class, "config", new File("config.yml"));
+        config.addSource(SnapshotTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() throws IOException, ParseException {
+        ConfigSnapshot snapshot = config.snapshot();
+        Assert.assertSame(snapshot, config.snapshot());
+
+        config.setRuntimeValue("config key", "runtime value");
+        config.setRuntimeValue("config int", 2);
+        Assert.assertEquals("value from config", snapshot.getString("config key"));
+        Assert.assertEquals(1, snapshot.getInt("config int"));
+
+        ConfigSnapshot updated = config.snapshot();
+        Assert.assertTrue(updated.getGeneration() > snapshot.getGeneration());
+        Assert.assertEquals("runtime value", updated.getString("config key"));
+        Assert.assertEquals(2, updated.getInt("config int"));
+        Assert.assertEquals("value from messages", updated.getString("messages key"));
+
+        config.loadAll();
+        Assert.assertTrue(config.snapshot().getGeneration() > updated.getGeneration());
+        Assert.assertEquals("runtime value", updated.getString("config key"));
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}
@@ -0,0 +1,60 @@
+package github.scarsz.configuralize.test;
+
+import github.scarsz.configuralize.DynamicConfig;
+import github.scarsz.configuralize.MessageTemplate;
+import github.scarsz.configuralize.ParseException;
+import github.scarsz.configuralize.Source;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TemplateTest {
+
+    private DynamicConfig config;
+
+    @Before
+    public void setUp() throws IOException, ParseException {
+        config = new DynamicConfig();
+        config.addSource(TemplateTest.class, "messages", new File("messages.yml"));
+        config.saveAllDefaults();
+        config.loadAll();
+    }
+
+    @Test
+    public void test() {
+        MessageTemplate template = config.getTemplate("welcome message");
+        Assert.assertSame(template, config.getTemplate("welcome message"));
+        Assert.assertEquals(Arrays.asList("user", "channel"), template.getPlaceholders());
+
+        Assert.assertEquals("Welcome Scarsz to #general, Scarsz!", template.render("Scarsz", "#general"));
+        Assert.assertEquals("Welcome Scarsz to {channel}, Scarsz!", template.render(Collections.singletonMap("user", "Scarsz")));
+
+        MessageTemplate.Binder binder = template.bind();
+        Assert.assertEquals("Welcome a to b, a!", binder.set("channel", "b").set("user", "a").render());
+        Assert.assertEquals("Welcome c to b, c!", binder.set(template.slot("user"), "c").render());
+
+        config.setRuntimeValue("welcome message", "Hi {user}");
+        Assert.assertEquals("Hi a", config.getTemplate("welcome message").render("a"));
+    }
+
+    @Test
+    public void literals() {
+        Assert.assertEquals("{not a placeholder} {} {open", MessageTemplate.parse("{not a placeholder} {} {open").render("x"));
+        Assert.assertEquals("50% off", MessageTemplate.parse("50% off").render());
+    }
+
+    @After
+    public void tearDown() {
+        config.getSources().keySet().stream()
+                .map(Source::getFile)
+                .filter(file -> !file.delete())
+                .forEach(File::deleteOnExit);
+    }
+
+}